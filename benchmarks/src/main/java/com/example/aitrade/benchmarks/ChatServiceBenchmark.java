@@ -0,0 +1,142 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.model.ChatRequest;
+import com.example.aitrade.model.ChatResponse;
+import com.example.aitrade.service.ChatService;
+import com.example.aitrade.service.ChatServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatService end to end (session lock, history, context window, chat call, extraction call,
+ * parsing) against a {@link StubChatClient}.
+ *
+ * {@code session} runs a whole N-turn conversation per op; {@code turn} runs one turn per op,
+ * cycling through depths 1..N, so its sample-time percentiles are per-turn tail latency over
+ * the life of a session. Run with {@code -prof gc} for allocation per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatServiceBenchmark {
+
+    private static final String[] CUSTOMER_MESSAGES = {
+            "Hi, I need a plumber urgently, there's water coming through the kitchen ceiling",
+            "I'm in Leeds, LS6, near the university",
+            "Budget is around £200 to £300 if that's realistic",
+            "It started about an hour ago, I've turned the stopcock off",
+            "Can someone come out this afternoon?",
+    };
+
+    private static final String[] TRADESPERSON_MESSAGES = {
+            "I'm a qualified electrician looking for work",
+            "I cover Manchester, Salford and Stockport",
+            "Fifteen years experience, mostly rewiring and fault finding",
+            "I'm available most weekdays from next week",
+            "I also install EV chargers",
+    };
+
+    private static final MethodHandle BASIC_EXTRACTION;
+
+    static {
+        try {
+            BASIC_EXTRACTION = MethodHandles.privateLookupIn(ChatService.class, MethodHandles.lookup())
+                    .findVirtual(ChatService.class, "basicInformationExtraction",
+                            MethodType.methodType(Map.class, ChatRequest.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"1", "10", "100"})
+    int turns;
+
+    @Param({"CUSTOMER"})
+    ChatRequest.UserType userType;
+
+    @Param({"0"})
+    long latencyMicros;
+
+    @Param({"400"})
+    int replyChars;
+
+    private ChatServiceFixture fixture;
+    private String[] messages;
+    private long sessionCounter;
+    private String rollingSession;
+    private int rollingTurn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new ChatServiceFixture(new StubChatClient(latencyMicros, replyChars), false);
+        messages = userType == ChatRequest.UserType.CUSTOMER ? CUSTOMER_MESSAGES : TRADESPERSON_MESSAGES;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ChatResponse session() {
+        String sessionId = nextSessionId();
+        ChatResponse response = null;
+        for (int i = 0; i < turns; i++) {
+            response = fixture.chatService.processMessage(request(sessionId, i));
+        }
+        fixture.chatService.clearConversationHistory(sessionId);
+        return response;
+    }
+
+    @Benchmark
+    public ChatResponse turn() {
+        if (rollingSession == null || rollingTurn == turns) {
+            if (rollingSession != null) {
+                fixture.chatService.clearConversationHistory(rollingSession);
+            }
+            rollingSession = nextSessionId();
+            rollingTurn = 0;
+        }
+        return fixture.chatService.processMessage(request(rollingSession, rollingTurn++));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> basicInformationExtraction() throws Throwable {
+        return (Map<String, Object>) BASIC_EXTRACTION.invoke(fixture.chatService, request("unused", 0));
+    }
+
+    private ChatRequest request(String sessionId, int turn) {
+        ChatRequest request = new ChatRequest();
+        request.setSessionId(sessionId);
+        request.setUserType(userType);
+        request.setMessage(messages[turn % messages.length]);
+        return request;
+    }
+
+    private String nextSessionId() {
+        return "bench-" + Thread.currentThread().threadId() + "-" + sessionCounter++;
+    }
+}
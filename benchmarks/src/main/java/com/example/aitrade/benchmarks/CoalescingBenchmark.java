@@ -0,0 +1,89 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.model.ChatRequest;
+import com.example.aitrade.model.ChatResponse;
+import com.example.aitrade.service.ChatServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A burst of identical opening messages in fresh sessions (a shared link, a promoted prompt),
+ * with and without coalescing of in-flight LLM calls.
+ *
+ * Every turn starts a new session, so each chat and extraction prompt is the same across
+ * threads. Upstream calls per turn are printed after each iteration; without coalescing it
+ * stays at 2 (one chat call, one extraction call).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class CoalescingBenchmark {
+
+    @Param({"false", "true"})
+    boolean coalesce;
+
+    @Param({"2000"})
+    long latencyMicros;
+
+    private StubChatClient chatClient;
+    private ChatServiceFixture fixture;
+    private final AtomicLong sessions = new AtomicLong();
+    private long callsAtStart;
+    private long turnsAtStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        chatClient = new StubChatClient(latencyMicros, 200);
+        fixture = new ChatServiceFixture(chatClient, false, coalesce);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        callsAtStart = chatClient.calls();
+        turnsAtStart = sessions.get();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportUpstreamCalls() {
+        long turns = sessions.get() - turnsAtStart;
+        long calls = chatClient.calls() - callsAtStart;
+        System.out.printf("%n  upstream calls per turn: %.3f (%d calls, %d turns)%n",
+                turns == 0 ? 0.0 : (double) calls / turns, calls, turns);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ChatResponse identicalFirstTurn() {
+        String sessionId = "burst-" + sessions.incrementAndGet();
+        ChatRequest request = new ChatRequest();
+        request.setSessionId(sessionId);
+        request.setUserType(ChatRequest.UserType.CUSTOMER);
+        request.setMessage("Hi, I need a plumber urgently in Leeds");
+        ChatResponse response = fixture.chatService.processMessage(request);
+        fixture.chatService.clearConversationHistory(sessionId);
+        return response;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.session.ConversationStore;
+import com.example.aitrade.session.InMemoryConversationStore;
+import com.example.aitrade.session.JdbcConversationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one turn's history traffic (read, append user message, append reply) per store,
+ * with embedded H2 standing in for the shared database.
+ *
+ * {@code twoReplicas} alternates turns between two JDBC stores on the same database, as when
+ * a load balancer spreads a conversation over two pods; each turn checks that the other
+ * node's messages are visible.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversationStoreBenchmark {
+
+    private static final Message USER = new UserMessage("I'm in Leeds, LS6, and the leak is getting worse");
+    private static final Message REPLY = new AssistantMessage(
+            "Thanks. A plumber near LS6 can usually attend within two hours for an emergency like this.");
+
+    @Param({"10", "100"})
+    int turns;
+
+    private ConversationStore memory;
+    private ConversationStore nodeA;
+    private ConversationStore nodeB;
+    private long sessionCounter;
+    private String memorySession;
+    private String jdbcSession;
+    private String sharedSession;
+    private int memoryTurn;
+    private int jdbcTurn;
+    private int sharedTurn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:conversations" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        ClassPathResource schema = new ClassPathResource("db/conversation-store.sql");
+
+        memory = new InMemoryConversationStore(100_000, 1L << 30, Duration.ofHours(1), registry);
+        nodeA = new JdbcConversationStore(new JdbcTemplate(dataSource), 1L << 28, Duration.ofHours(1),
+                true, schema, registry);
+        nodeB = new JdbcConversationStore(new JdbcTemplate(dataSource), 1L << 28, Duration.ofHours(1),
+                false, schema, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public List<Message> inMemory() {
+        if (memorySession == null || memoryTurn == turns) {
+            memorySession = rotate(memory, memorySession);
+            memoryTurn = 0;
+        }
+        memoryTurn++;
+        return turn(memory, memorySession);
+    }
+
+    @Benchmark
+    public List<Message> jdbcNearCache() {
+        if (jdbcSession == null || jdbcTurn == turns) {
+            jdbcSession = rotate(nodeA, jdbcSession);
+            jdbcTurn = 0;
+        }
+        jdbcTurn++;
+        return turn(nodeA, jdbcSession);
+    }
+
+    @Benchmark
+    public List<Message> twoReplicas() {
+        if (sharedSession == null || sharedTurn == turns) {
+            sharedSession = rotate(nodeA, sharedSession);
+            sharedTurn = 0;
+        }
+        ConversationStore node = sharedTurn % 2 == 0 ? nodeA : nodeB;
+        List<Message> history = turn(node, sharedSession);
+        if (history.size() != 2 * sharedTurn) {
+            throw new IllegalStateException("Replica saw " + history.size() + " messages, expected " + 2 * sharedTurn);
+        }
+        sharedTurn++;
+        return history;
+    }
+
+    private static List<Message> turn(ConversationStore store, String sessionId) {
+        List<Message> history = store.getHistory(sessionId);
+        store.append(sessionId, List.of(USER));
+        store.append(sessionId, List.of(REPLY));
+        return history;
+    }
+
+    private String rotate(ConversationStore store, String previous) {
+        if (previous != null) {
+            store.remove(previous);
+        }
+        return "bench-" + sessionCounter++;
+    }
+}
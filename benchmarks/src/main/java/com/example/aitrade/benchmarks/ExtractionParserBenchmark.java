@@ -0,0 +1,113 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.service.ExtractionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming Jackson extraction parser vs. the previous per-field regex approach.
+ *
+ * Run with {@code -prof gc} to compare allocation per parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionParserBenchmark {
+
+    private static final String CUSTOMER = """
+            ```json
+            {
+              "serviceType": "PLUMBING",
+              "urgency": "HIGH",
+              "location": "Leeds, LS6",
+              "budgetRange": "£200-300",
+              "isEmergency": true,
+              "jobDescription": "Burst pipe under the kitchen sink, water everywhere"
+            }
+            ```""";
+
+    private static final String TRADESPERSON = """
+            Here is the extracted information:
+            {"tradeSkills": ["rewiring", "fault finding", "EV charger installation"],
+             "qualified": true, "availability": "AVAILABLE",
+             "serviceAreas": ["Manchester", "Salford", "Stockport"],
+             "experienceLevel": "EXPERT"}""";
+
+    private final ExtractionParser parser = new ExtractionParser();
+
+    @Benchmark
+    public Map<String, Object> streamingCustomer() throws IOException {
+        return ExtractionParser.toExtractedInfo(parser.parseServiceRequest(CUSTOMER));
+    }
+
+    @Benchmark
+    public Map<String, Object> streamingTradesperson() throws IOException {
+        return ExtractionParser.toExtractedInfo(parser.parseTradespersonProfile(TRADESPERSON));
+    }
+
+    @Benchmark
+    public Map<String, Object> regexCustomer() {
+        String json = clean(CUSTOMER);
+        Map<String, Object> info = new HashMap<>();
+        info.put("serviceType", extractJsonField(json, "serviceType"));
+        info.put("urgency", extractJsonField(json, "urgency"));
+        info.put("location", extractJsonField(json, "location"));
+        info.put("budget", extractJsonField(json, "budgetRange"));
+        info.put("isEmergency", extractJsonField(json, "isEmergency"));
+        info.put("specificNeeds", extractJsonField(json, "jobDescription"));
+        return info;
+    }
+
+    @Benchmark
+    public Map<String, Object> regexTradesperson() {
+        String json = clean(TRADESPERSON);
+        Map<String, Object> info = new HashMap<>();
+        info.put("tradeSkills", extractJsonField(json, "tradeSkills"));
+        info.put("qualified", extractJsonField(json, "qualified"));
+        info.put("availability", extractJsonField(json, "availability"));
+        info.put("serviceAreas", extractJsonField(json, "serviceAreas"));
+        info.put("experienceLevel", extractJsonField(json, "experienceLevel"));
+        return info;
+    }
+
+    // Previous ChatService implementation, kept verbatim for comparison
+    private static String clean(String extractedJson) {
+        String cleanJson = extractedJson.trim();
+        if (cleanJson.startsWith("```json")) {
+            cleanJson = cleanJson.substring(7);
+        }
+        if (cleanJson.endsWith("```")) {
+            cleanJson = cleanJson.substring(0, cleanJson.length() - 3);
+        }
+        return cleanJson.trim();
+    }
+
+    private static String extractJsonField(String json, String fieldName) {
+        String pattern = "\"" + fieldName + "\"\\s*:\\s*\"?([^,}\"]+)\"?";
+        Pattern p = Pattern.compile(pattern);
+        Matcher m = p.matcher(json);
+        if (m.find()) {
+            String value = m.group(1).trim();
+            if ("null".equals(value)) return null;
+            return value;
+        }
+        return null;
+    }
+}
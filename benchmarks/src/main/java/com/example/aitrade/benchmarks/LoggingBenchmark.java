@@ -0,0 +1,168 @@
+package com.example.aitrade.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.JsonEncoder;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.example.aitrade.model.ChatRequest;
+import com.example.aitrade.model.ChatResponse;
+import com.example.aitrade.service.ChatServiceFixture;
+import com.example.aitrade.service.PayloadLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of logging on the chat path: turns through ChatService with logging off, configured
+ * the way application.yml ran before the production profile (DEBUG, synchronous text appender,
+ * every payload in full), and with the production profile (INFO, async JSON appender, 1% of
+ * payloads capped at 1024 chars).
+ *
+ * Logs go to a temp file so the console doesn't skew the result; bytes logged per turn are
+ * printed at the end of the trial. Compare {@code -prof gc} allocation per op across configs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String[] MESSAGES = {
+            "Hi, I need a plumber urgently, there's water coming through the kitchen ceiling",
+            "I'm in Leeds, LS6, near the university",
+            "Budget is around £200 to £300 if that's realistic",
+            "It started about an hour ago, I've turned the stopcock off",
+            "Can someone come out this afternoon?",
+    };
+    private static final int TURNS_PER_SESSION = 10;
+
+    @Param({"off", "today", "production"})
+    String config;
+
+    private ChatServiceFixture fixture;
+    private Path logFile;
+    private final AtomicLong turns = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Conversation {
+        private final String prefix = "log-" + Thread.currentThread().threadId() + "-";
+        private long session;
+        private int turn;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("logging-benchmark", ".log");
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+
+        PayloadLogger payloadLogger;
+        switch (config) {
+            case "off" -> {
+                root.setLevel(ch.qos.logback.classic.Level.OFF);
+                payloadLogger = new PayloadLogger(0, 0);
+            }
+            case "today" -> {
+                PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+                encoder.setContext(context);
+                encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%15.15t] %-40.40logger{39} : %m%n");
+                encoder.start();
+                root.addAppender(fileAppender(context, encoder));
+                root.setLevel(ch.qos.logback.classic.Level.INFO);
+                context.getLogger("com.example.aitrade").setLevel(ch.qos.logback.classic.Level.DEBUG);
+                payloadLogger = new PayloadLogger(1.0, Integer.MAX_VALUE);
+            }
+            case "production" -> {
+                // Same settings as the production profile in logback-spring.xml
+                JsonEncoder encoder = new JsonEncoder();
+                encoder.setContext(context);
+                encoder.setWithSequenceNumber(false);
+                encoder.setWithNanoseconds(false);
+                encoder.setWithContext(false);
+                encoder.setWithMessage(false);
+                encoder.setWithArguments(false);
+                encoder.setWithFormattedMessage(true);
+                encoder.start();
+                AsyncAppender async = new AsyncAppender();
+                async.setContext(context);
+                async.setName("ASYNC");
+                async.setQueueSize(8192);
+                async.setNeverBlock(true);
+                async.setIncludeCallerData(false);
+                async.addAppender(fileAppender(context, encoder));
+                async.start();
+                root.addAppender(async);
+                root.setLevel(ch.qos.logback.classic.Level.INFO);
+                payloadLogger = new PayloadLogger(0.01, 1024);
+            }
+            default -> throw new IllegalArgumentException("Unknown config " + config);
+        }
+
+        fixture = new ChatServiceFixture(new StubChatClient(0, 400), false, false, payloadLogger);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        // Stopping drains the async queue, so the file size is final
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        long bytes = Files.size(logFile);
+        long total = turns.get();
+        System.out.printf("%n  logged %d bytes over %d turns (%.0f bytes/turn)%n",
+                bytes, total, total == 0 ? 0.0 : (double) bytes / total);
+        Files.deleteIfExists(logFile);
+        fixture.close();
+    }
+
+    @Benchmark
+    public ChatResponse turn(Conversation conversation) {
+        if (conversation.turn == TURNS_PER_SESSION) {
+            fixture.chatService.clearConversationHistory(conversation.prefix + conversation.session);
+            conversation.session++;
+            conversation.turn = 0;
+        }
+        ChatRequest request = new ChatRequest();
+        request.setSessionId(conversation.prefix + conversation.session);
+        request.setUserType(ChatRequest.UserType.CUSTOMER);
+        request.setMessage(MESSAGES[conversation.turn++ % MESSAGES.length]);
+        turns.incrementAndGet();
+        return fixture.chatService.processMessage(request);
+    }
+
+    private Appender<ILoggingEvent> fileAppender(LoggerContext context, Encoder<ILoggingEvent> encoder) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setName("FILE");
+        appender.setFile(logFile.toString());
+        appender.setAppend(false);
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.model.ServiceRequest;
+import com.example.aitrade.model.Tradesperson;
+import com.example.aitrade.model.TradespersonMatch;
+import com.example.aitrade.service.TradespersonMatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-K matching latency and index update cost over synthetic profiles spread across UK towns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchingBenchmark {
+
+    private static final String[] TOWNS = {
+            "London", "Birmingham", "Manchester", "Leeds", "Liverpool", "Sheffield", "Bristol", "Newcastle",
+            "Nottingham", "Leicester", "Coventry", "Bradford", "Hull", "Cardiff", "Edinburgh", "Glasgow",
+            "York", "Oxford", "Cambridge", "Brighton", "Southampton", "Reading", "Norwich", "Exeter"};
+    private static final String[] SKILLS = {
+            "pipe fitting", "boiler repair", "rewiring", "fuse boxes", "painting", "decorating",
+            "joinery", "kitchen cabinets", "landscaping", "lawn care", "roofing", "tiling"};
+    private static final String[] AVAILABILITY = {"AVAILABLE", "BUSY", "UNKNOWN"};
+    private static final String[] EXPERIENCE = {"BEGINNER", "INTERMEDIATE", "EXPERT", "UNKNOWN"};
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "100000"})
+    int profiles;
+
+    @Param({"5"})
+    int limit;
+
+    private TradespersonMatcher matcher;
+    private ServiceRequest[] queries;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        matcher = new TradespersonMatcher(null, limit, 80, new SimpleMeterRegistry());
+        for (int i = 0; i < profiles; i++) {
+            matcher.upsert(profile("tp-" + i));
+        }
+
+        ServiceRequest.ServiceType[] types = ServiceRequest.ServiceType.values();
+        queries = new ServiceRequest[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = new ServiceRequest(
+                    types[random.nextInt(types.length)],
+                    random.nextBoolean() ? ServiceRequest.Urgency.HIGH : ServiceRequest.Urgency.MEDIUM,
+                    TOWNS[random.nextInt(TOWNS.length)],
+                    null, null, null);
+        }
+    }
+
+    @Benchmark
+    public List<TradespersonMatch> match() {
+        return matcher.match(queries[next++ & (QUERIES - 1)], limit);
+    }
+
+    /** A known profile changing skills, areas or availability. */
+    @Benchmark
+    public void upsert() {
+        matcher.upsert(profile("tp-" + random.nextInt(profiles)));
+    }
+
+    private Tradesperson profile(String id) {
+        return Tradesperson.builder()
+                .tradespersonId(id)
+                .tradeSkills(SKILLS[random.nextInt(SKILLS.length)] + "," + SKILLS[random.nextInt(SKILLS.length)])
+                .serviceAreas(TOWNS[random.nextInt(TOWNS.length)] + "," + TOWNS[random.nextInt(TOWNS.length)])
+                .availability(AVAILABILITY[random.nextInt(AVAILABILITY.length)])
+                .experienceLevel(EXPERIENCE[random.nextInt(EXPERIENCE.length)])
+                .qualified(random.nextBoolean())
+                .build();
+    }
+}
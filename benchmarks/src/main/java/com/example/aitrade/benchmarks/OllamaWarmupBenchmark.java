@@ -0,0 +1,102 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.config.OllamaModelKeeper;
+import com.example.aitrade.service.ChatEngine;
+import com.example.aitrade.service.ChatMetrics;
+import com.example.aitrade.service.SpringAiChatEngine;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.ollama.OllamaChatClient;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.api.OllamaOptions;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First chat call after the model was evicted, against a {@link StubOllamaServer} that takes
+ * {@code loadMillis} to load it, with and without {@link OllamaModelKeeper#warmUp()} beforehand
+ * (the warm-up itself is not timed).
+ *
+ * The keeper's cold/warm call counts and the stub's load count are printed at teardown; with
+ * warm-up every timed call should count as warm and every load should come from the warm-up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OllamaWarmupBenchmark {
+
+    private static final List<Message> PROMPT = List.of(new UserMessage("Hi, I need a plumber in Leeds"));
+
+    @Param({"false", "true"})
+    boolean warmUp;
+
+    @Param({"500"})
+    long loadMillis;
+
+    private StubOllamaServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatEngine ollama;
+    private ChatEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new StubOllamaServer(loadMillis, Duration.ofMinutes(5), 200);
+        meterRegistry = new SimpleMeterRegistry();
+        OllamaChatClient client = new OllamaChatClient(new OllamaApi(stub.baseUrl()))
+                .withDefaultOptions(OllamaOptions.create().withModel("mistral"));
+        ollama = new SpringAiChatEngine("ollama", client, new ChatMetrics(meterRegistry, "mistral", "", ""));
+    }
+
+    /**
+     * Each call follows an eviction and a fresh keeper, as after a pod restart or an Ollama
+     * restart; the keeper shares the meter registry so its counts add up across calls.
+     */
+    @Setup(Level.Invocation)
+    public void evict() {
+        stub.unload();
+        OllamaModelKeeper keeper = new OllamaModelKeeper(stub.baseUrl(), "mistral", warmUp, Duration.ofSeconds(10),
+                "ollama", Duration.ofMinutes(30), Duration.ofMinutes(4), meterRegistry);
+        if (warmUp) {
+            keeper.warmUp();
+        }
+        engine = keeper.track(ollama);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n  calls cold=%d warm=%d, model loads=%d%n",
+                callCount("cold"), callCount("warm"), stub.loads());
+        stub.close();
+        meterRegistry.close();
+    }
+
+    @Benchmark
+    public String firstCallAfterEviction() throws Exception {
+        return engine.call(PROMPT);
+    }
+
+    private long callCount(String state) {
+        Timer timer = meterRegistry.find("chat.ollama.call").tag("state", state).timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
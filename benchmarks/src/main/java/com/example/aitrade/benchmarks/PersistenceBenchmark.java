@@ -0,0 +1,116 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.model.JobRequest;
+import com.example.aitrade.model.Tradesperson;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second for the extracted entities on embedded H2: one transaction per row (what a
+ * synchronous save per turn costs) against one transaction per batch (what ExtractionWriter
+ * does), each with and without Hibernate JDBC batching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final int ROWS = 500;
+
+    /** hibernate.jdbc.batch_size; 1 turns batching off. */
+    @Param({"1", "50"})
+    int jdbcBatchSize;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(JobRequest.class)
+                .addAnnotatedClass(Tradesperson.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:persistence" + System.nanoTime() + ";DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", String.valueOf(jdbcBatchSize))
+                .setProperty("hibernate.order_inserts", "true")
+                .buildSessionFactory();
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("delete from JobRequest").executeUpdate();
+            session.createMutationQuery("delete from Tradesperson").executeUpdate();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void rowPerTransaction() {
+        for (int i = 0; i < ROWS; i++) {
+            Object entity = entity(i);
+            sessionFactory.inTransaction(session -> session.persist(entity));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batchPerTransaction() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                session.persist(entity(i));
+            }
+        });
+    }
+
+    // Interleaved like the writer's queue, so ordered inserts have something to regroup
+    private static Object entity(int i) {
+        if (i % 2 == 0) {
+            return JobRequest.builder()
+                    .customerId("customer-" + i)
+                    .serviceType("PLUMBING")
+                    .urgency("HIGH")
+                    .location("Leeds LS6")
+                    .budgetRange("£200-300")
+                    .description("Leaking pipe under the kitchen sink")
+                    .createdAt(LocalDateTime.now())
+                    .status("OPEN")
+                    .build();
+        }
+        return Tradesperson.builder()
+                .tradespersonId("tradesperson-" + i)
+                .tradeSkills("boiler repair,pipe fitting")
+                .qualified(true)
+                .availability("AVAILABLE")
+                .serviceAreas("Leeds,Bradford")
+                .experienceLevel("EXPERT")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
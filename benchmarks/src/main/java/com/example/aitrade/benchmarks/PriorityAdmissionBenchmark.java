@@ -0,0 +1,69 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.service.EngineBulkhead;
+import com.example.aitrade.service.LlmPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency per priority class through a saturated engine bulkhead: 4 permits, a 2 ms call,
+ * 2 urgent callers against 14 background callers. With {@code urgentWeight=1} the classes
+ * share permits equally, which is the baseline to compare against.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class PriorityAdmissionBenchmark {
+
+    private static final long CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Param({"1", "8"})
+    double urgentWeight;
+
+    private EngineBulkhead bulkhead;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bulkhead = new EngineBulkhead(4, 4, 4, Duration.ofSeconds(30), urgentWeight, 4, 2, 1,
+                new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    @Group("saturated")
+    @GroupThreads(2)
+    public Long urgent() throws Exception {
+        return bulkhead.execute("ollama", LlmPriority.URGENT, PriorityAdmissionBenchmark::engineCall);
+    }
+
+    @Benchmark
+    @Group("saturated")
+    @GroupThreads(14)
+    public Long background() throws Exception {
+        return bulkhead.execute("ollama", LlmPriority.BACKGROUND, PriorityAdmissionBenchmark::engineCall);
+    }
+
+    private static Long engineCall() {
+        LockSupport.parkNanos(CALL_NANOS);
+        return CALL_NANOS;
+    }
+}
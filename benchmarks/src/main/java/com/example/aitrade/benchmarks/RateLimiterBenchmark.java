@@ -0,0 +1,84 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.model.ChatRequest;
+import com.example.aitrade.service.RequestRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-turn rate limit check (IP, user and session buckets). Limits are set high
+ * enough that nothing is rejected, so this is the admitted-path overhead. {@code hotKey}
+ * sends every thread through the same three buckets; {@code spreadKeys} cycles through
+ * {@code keys} distinct clients. {@code disabled} is the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"100000"})
+    int keys;
+
+    private RequestRateLimiter limiter;
+    private RequestRateLimiter disabled;
+    private String[] ips;
+    private String[] users;
+    private String[] sessions;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // One token per nanosecond: faster than any thread can spend them
+        double unlimited = TimeUnit.MINUTES.toNanos(1);
+        limiter = new RequestRateLimiter(true, unlimited, 1_000_000, unlimited, 1_000_000, unlimited, 1_000_000,
+                keys * 3L, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        disabled = new RequestRateLimiter(false, 1, 1, 1, 1, 1, 1, 1, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        ips = new String[keys];
+        users = new String[keys];
+        sessions = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            ips[i] = "10.0." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            users[i] = "user-" + i;
+            sessions[i] = "session_" + i;
+        }
+    }
+
+    @Benchmark
+    public void hotKey() {
+        limiter.check(ChatRequest.UserType.CUSTOMER, "user-0", "session_0", "10.0.0.0");
+    }
+
+    @Benchmark
+    public void spreadKeys(Cursor cursor) {
+        int i = cursor.next++ % keys;
+        limiter.check(ChatRequest.UserType.CUSTOMER, users[i], sessions[i], ips[i]);
+    }
+
+    @Benchmark
+    public void disabled() {
+        disabled.check(ChatRequest.UserType.CUSTOMER, "user-0", "session_0", "10.0.0.0");
+    }
+}
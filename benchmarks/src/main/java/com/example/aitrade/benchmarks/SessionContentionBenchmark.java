@@ -0,0 +1,121 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.model.ChatRequest;
+import com.example.aitrade.model.ChatResponse;
+import com.example.aitrade.service.ChatServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Many threads driving one session at once (double-clicks, client retries, a shared browser
+ * tab), against the same load spread over one session per thread.
+ *
+ * The shared session rotates every {@value #TURNS_PER_SESSION} turns so history length stays
+ * comparable between the two cases. After every iteration each shared session is checked:
+ * every turn must have left exactly one user message followed by its assistant reply.
+ * A violation fails the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class SessionContentionBenchmark {
+
+    static final int TURNS_PER_SESSION = 100;
+
+    @Param({"0", "200"})
+    long latencyMicros;
+
+    private ChatServiceFixture fixture;
+    private final AtomicLong turnTickets = new AtomicLong();
+    private int iteration;
+
+    @State(Scope.Thread)
+    public static class OwnSession {
+        final String sessionId = "own-" + Thread.currentThread().threadId();
+        int turns;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Own sessions send identical first turns; keep them from being coalesced so only locking differs
+        fixture = new ChatServiceFixture(new StubChatClient(latencyMicros, 200), false, false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verifySharedHistory() {
+        long total = turnTickets.getAndSet(0);
+        for (long index = 0; index * TURNS_PER_SESSION < total; index++) {
+            String sessionId = sharedSessionId(index);
+            List<Message> history = fixture.conversationStore.getHistory(sessionId);
+            long expected = Math.min(TURNS_PER_SESSION, total - index * TURNS_PER_SESSION) * 2;
+            if (history.size() != expected) {
+                throw new IllegalStateException(sessionId + " has " + history.size()
+                        + " messages after " + expected / 2 + " turns");
+            }
+            for (int i = 0; i < history.size(); i++) {
+                MessageType want = i % 2 == 0 ? MessageType.USER : MessageType.ASSISTANT;
+                if (history.get(i).getMessageType() != want) {
+                    throw new IllegalStateException("Turns interleaved in " + sessionId + " at message " + i
+                            + ": expected " + want + " but was " + history.get(i).getMessageType());
+                }
+            }
+            fixture.chatService.clearConversationHistory(sessionId);
+        }
+        iteration++;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ChatResponse sharedSession() {
+        long ticket = turnTickets.getAndIncrement();
+        return fixture.chatService.processMessage(request(sharedSessionId(ticket / TURNS_PER_SESSION)));
+    }
+
+    @Benchmark
+    public ChatResponse sessionPerThread(OwnSession own) {
+        ChatResponse response = fixture.chatService.processMessage(request(own.sessionId));
+        if (++own.turns == TURNS_PER_SESSION) {
+            fixture.chatService.clearConversationHistory(own.sessionId);
+            own.turns = 0;
+        }
+        return response;
+    }
+
+    private String sharedSessionId(long index) {
+        return "shared-" + iteration + "-" + index;
+    }
+
+    private static ChatRequest request(String sessionId) {
+        ChatRequest request = new ChatRequest();
+        request.setSessionId(sessionId);
+        request.setUserType(ChatRequest.UserType.CUSTOMER);
+        request.setMessage("Hi, I need a plumber urgently in Leeds");
+        return request;
+    }
+}
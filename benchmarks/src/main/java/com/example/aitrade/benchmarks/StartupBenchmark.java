@@ -0,0 +1,172 @@
+package com.example.aitrade.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time from launching the application JVM to {@code /actuator/health/readiness} answering UP,
+ * the window a new pod spends before it can take traffic.
+ *
+ * Each launch runs the packaged application ({@code -p jar=}, built by {@code mvn package}) as a
+ * child process: {@code jar} runs the executable jar as-is, {@code extracted} runs it unpacked
+ * to a plain classpath, and {@code cds} adds a class data sharing archive recorded by a training
+ * run in setup, the way the Dockerfile does. With a jar built by {@code mvn -Pfast-start
+ * package}, {@code -p aot=true} starts from the AOT-generated context as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+
+    @Param({"target/ai-trade-platform-1.0.0-SNAPSHOT-exec.jar"})
+    String jar;
+
+    @Param({"jar", "extracted", "cds"})
+    String mode;
+
+    @Param({"false"})
+    boolean aot;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private Path workDir;
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path executableJar = Paths.get(jar).toAbsolutePath();
+        if (!Files.isRegularFile(executableJar)) {
+            throw new IllegalStateException("No application jar at " + executableJar + "; run mvn package first");
+        }
+        workDir = Files.createTempDirectory("startup-benchmark");
+
+        List<String> jvmOptions = new ArrayList<>();
+        if (aot) {
+            jvmOptions.add("-Dspring.aot.enabled=true");
+        }
+        Path launchJar = executableJar;
+        if (!mode.equals("jar")) {
+            run(List.of(javaExecutable(), "-Djarmode=tools", "-jar", executableJar.toString(),
+                    "extract", "--destination", workDir.resolve("extracted").toString()));
+            launchJar = workDir.resolve("extracted").resolve(executableJar.getFileName());
+        }
+        if (mode.equals("cds")) {
+            Path archive = workDir.resolve("app.jsa");
+            List<String> training = new ArrayList<>(List.of(javaExecutable()));
+            training.addAll(jvmOptions);
+            training.addAll(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh",
+                    "-jar", launchJar.toString()));
+            run(training);
+            jvmOptions.add("-XX:SharedArchiveFile=" + archive);
+        }
+
+        command = new ArrayList<>(List.of(javaExecutable()));
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-jar", launchJar.toString()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int timeToReady() throws Exception {
+        int port = freePort();
+        List<String> launch = new ArrayList<>(command);
+        launch.add("--server.port=" + port);
+        // No Ollama here; warm-up would hold readiness for its whole retry window
+        launch.add("--app.ollama.warmup.enabled=false");
+        Process process = new ProcessBuilder(launch)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            return awaitReady(process, URI.create("http://localhost:" + port + "/actuator/health/readiness"));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private int awaitReady(Process process, URI readiness) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(readiness).timeout(Duration.ofSeconds(1)).GET().build();
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " before becoming ready");
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (IOException e) {
+                // Not listening yet, or still starting up
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Application not ready within " + READY_TIMEOUT);
+    }
+
+    private void run(List<String> args) throws Exception {
+        Process process = new ProcessBuilder(args)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Setup step failed (exit " + process.exitValue() + "): " + String.join(" ", args));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String javaExecutable() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+}
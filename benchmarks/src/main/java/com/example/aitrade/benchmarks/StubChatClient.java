@@ -0,0 +1,83 @@
+package com.example.aitrade.benchmarks;
+
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.Generation;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deterministic in-process ChatClient for benchmarks.
+ *
+ * Chat prompts get a fixed-size reply; extraction prompts (recognised by their instruction
+ * text) get a well-formed extraction object. Each call parks for the configured latency.
+ */
+public class StubChatClient implements ChatClient, StreamingChatClient {
+
+    private static final String CUSTOMER_EXTRACTION = """
+            {"serviceType": "PLUMBING", "urgency": "HIGH", "location": "Leeds",
+             "budgetRange": "£200-300", "isEmergency": true, "jobDescription": "Burst pipe"}""";
+
+    private static final String TRADESPERSON_EXTRACTION = """
+            {"tradeSkills": ["rewiring", "fault finding"], "qualified": true, "availability": "AVAILABLE",
+             "serviceAreas": ["Manchester", "Salford"], "experienceLevel": "EXPERT"}""";
+
+    private final long latencyNanos;
+    private final String reply;
+    private final AtomicLong calls = new AtomicLong();
+
+    public StubChatClient(long latencyMicros, int replyChars) {
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+        StringBuilder text = new StringBuilder(replyChars);
+        while (text.length() < replyChars) {
+            text.append("Thanks, I can help with that. ");
+        }
+        this.reply = text.substring(0, replyChars);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        calls.incrementAndGet();
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        return new ChatResponse(List.of(new Generation(contentFor(prompt))));
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        calls.incrementAndGet();
+        String content = contentFor(prompt);
+        List<ChatResponse> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length(); i += 16) {
+            chunks.add(new ChatResponse(List.of(new Generation(content.substring(i, Math.min(content.length(), i + 16))))));
+        }
+        Flux<ChatResponse> flux = Flux.fromIterable(chunks);
+        return latencyNanos > 0 ? flux.delaySubscription(Duration.ofNanos(latencyNanos)) : flux;
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    private String contentFor(Prompt prompt) {
+        List<Message> messages = prompt.getInstructions();
+        String last = messages.get(messages.size() - 1).getContent();
+        if (last.startsWith("Extract structured information from this customer")) {
+            return CUSTOMER_EXTRACTION;
+        }
+        if (last.startsWith("Extract structured information from this tradesperson")) {
+            return TRADESPERSON_EXTRACTION;
+        }
+        return reply;
+    }
+}
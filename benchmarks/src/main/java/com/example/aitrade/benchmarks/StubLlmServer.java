@@ -0,0 +1,70 @@
+package com.example.aitrade.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process stand-in for an OpenAI-compatible chat completions endpoint.
+ *
+ * Replies with a canned completion after a fixed delay and records the distinct client
+ * ports it has seen, which is the number of TCP connections the client opened.
+ */
+public final class StubLlmServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final byte[] completion;
+    private final long latencyMillis;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    public StubLlmServer(long latencyMillis, int replyChars) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.completion = ("{\"id\":\"stub\",\"object\":\"chat.completion\",\"choices\":[{\"index\":0,"
+                + "\"message\":{\"role\":\"assistant\",\"content\":\"" + "x".repeat(replyChars) + "\"},"
+                + "\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":100,\"completion_tokens\":" + (replyChars / 4) + "}}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/v1/chat/completions", this::handleCompletion);
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    public int connectionsSeen() {
+        return clientPorts.size();
+    }
+
+    private void handleCompletion(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        exchange.getRequestBody().readAllBytes();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, completion.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(completion);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.aitrade.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for an Ollama server with one model.
+ *
+ * Serves {@code /api/generate} (prompt-less, as used for loading) and non-streaming
+ * {@code /api/chat}. The model has to be loaded first, which takes {@code loadMillis}. It then
+ * stays loaded for the request's {@code keep_alive}, or {@code defaultKeepAlive} when the
+ * request has none. Each request resets that timer, as Ollama does.
+ */
+public final class StubOllamaServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long loadMillis;
+    private final long defaultKeepAliveNanos;
+    private final String reply;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    // Guarded by this
+    private boolean loaded;
+    private long loadedUntilNanos;
+
+    public StubOllamaServer(long loadMillis, Duration defaultKeepAlive, int replyChars) throws IOException {
+        this.loadMillis = loadMillis;
+        this.defaultKeepAliveNanos = defaultKeepAlive.toNanos();
+        this.reply = "x".repeat(replyChars);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/api/generate", this::handleGenerate);
+        this.server.createContext("/api/chat", this::handleChat);
+        this.server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** Times the model has been loaded. */
+    public int loads() {
+        return loads.get();
+    }
+
+    /** Evict the model, as Ollama does when its keep-alive runs out. */
+    public synchronized void unload() {
+        loaded = false;
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        long loadNanos = ensureLoaded(request);
+        respond(exchange, Map.of(
+                "model", request.path("model").asText(),
+                "created_at", Instant.now().toString(),
+                "response", "",
+                "done", true,
+                "done_reason", "load",
+                "load_duration", loadNanos));
+    }
+
+    private void handleChat(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        long start = System.nanoTime();
+        long loadNanos = ensureLoaded(request);
+        respond(exchange, Map.of(
+                "model", request.path("model").asText(),
+                "created_at", Instant.now().toString(),
+                "message", Map.of("role", "assistant", "content", reply),
+                "done", true,
+                "total_duration", System.nanoTime() - start,
+                "load_duration", loadNanos,
+                "prompt_eval_count", 100,
+                "eval_count", reply.length() / 4));
+    }
+
+    /**
+     * @return nanoseconds spent loading the model for this request
+     */
+    private synchronized long ensureLoaded(JsonNode request) {
+        long keepAliveNanos = request.has("keep_alive")
+                ? TimeUnit.SECONDS.toNanos(Long.parseLong(request.path("keep_alive").asText().replaceAll("s$", "")))
+                : defaultKeepAliveNanos;
+        long loadNanos = 0;
+        if (!loaded || System.nanoTime() - loadedUntilNanos >= 0) {
+            long start = System.nanoTime();
+            try {
+                Thread.sleep(loadMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            loads.incrementAndGet();
+            loadNanos = System.nanoTime() - start;
+            loaded = true;
+        }
+        loadedUntilNanos = System.nanoTime() + keepAliveNanos;
+        return loadNanos;
+    }
+
+    private void respond(HttpExchange exchange, Map<String, Object> body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
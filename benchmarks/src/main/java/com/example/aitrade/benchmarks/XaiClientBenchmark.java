@@ -0,0 +1,103 @@
+package com.example.aitrade.benchmarks;
+
+import com.example.aitrade.service.ChatMetrics;
+import com.example.aitrade.service.XaiChatService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pooled JDK HttpClient in XaiChatService against the previous bare RestTemplate
+ * and against a client that opens a new connection per call, all hitting a local stub.
+ *
+ * The connection count printed at teardown shows how many TCP connections each variant
+ * opened; against a real TLS endpoint every extra connection is also a full handshake.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class XaiClientBenchmark {
+
+    private static final String PAYLOAD =
+            "{\"model\":\"grok\",\"messages\":[{\"role\":\"user\",\"content\":\"need a plumber in Leeds\"}],"
+            + "\"temperature\":0.7,\"stream\":false}";
+
+    @Param({"0", "5"})
+    public long upstreamLatencyMillis;
+
+    private StubLlmServer stub;
+    private XaiChatService pooled;
+    private RestTemplate restTemplate;
+    private URI completionsUri;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = new StubLlmServer(upstreamLatencyMillis, 600);
+        pooled = new XaiChatService("test-key", stub.baseUrl(), "grok", Duration.ofSeconds(5), Duration.ofSeconds(30), 64,
+                new ChatMetrics(new SimpleMeterRegistry(), "", "", "grok"));
+        restTemplate = new RestTemplate();
+        completionsUri = URI.create(stub.baseUrl() + "/chat/completions");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nConnections opened against stub: %d%n", stub.connectionsSeen());
+        stub.close();
+    }
+
+    @Benchmark
+    public String pooledHttpClient() throws Exception {
+        return pooled.callXaiApi("need a plumber in Leeds");
+    }
+
+    @Benchmark
+    public String legacyRestTemplate() {
+        // Mirrors the previous implementation: fresh headers and entity per call
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Content-Type", "application/json");
+        headers.set("Authorization", "Bearer test-key");
+        return restTemplate.exchange(completionsUri, HttpMethod.POST, new HttpEntity<>(PAYLOAD, headers), String.class)
+                .getBody();
+    }
+
+    @Benchmark
+    public String newConnectionPerCall() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(completionsUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(PAYLOAD))
+                    .build();
+            return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.aitrade.config;
+
+import com.example.aitrade.service.AdaptiveConcurrencyLimiter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts the chat endpoints that call an AI engine behind the adaptive concurrency limit.
+ * Health, metrics, session and static endpoints are not limited.
+ */
+@Configuration
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<ChatAdmissionFilter> chatAdmissionFilter(AdaptiveConcurrencyLimiter limiter) {
+        FilterRegistrationBean<ChatAdmissionFilter> registration =
+                new FilterRegistrationBean<>(new ChatAdmissionFilter(limiter));
+        registration.setName("chatAdmissionFilter");
+        registration.addUrlPatterns(
+                "/api/chat/message",
+                "/api/chat/customer",
+                "/api/chat/tradesperson",
+                "/api/chat/stream",
+                "/api/chat/ai-extract",
+                "/api/chat/ui");
+        return registration;
+    }
+}
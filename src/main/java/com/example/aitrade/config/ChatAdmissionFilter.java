@@ -0,0 +1,107 @@
+package com.example.aitrade.config;
+
+import com.example.aitrade.service.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Answers 429 with Retry-After once {@link AdaptiveConcurrencyLimiter} is at its limit.
+ * Streaming requests hold their slot until the async response completes.
+ *
+ * A failed turn still answers 200 with an apology, so handlers report it with
+ * {@link #markFailed} for the limiter to count it alongside 5xx responses.
+ */
+public class ChatAdmissionFilter extends OncePerRequestFilter {
+
+    private static final String TURN_FAILED = ChatAdmissionFilter.class.getName() + ".TURN_FAILED";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ChatAdmissionFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * Count this request as a failure when its slot is released, whatever its status.
+     */
+    public static void markFailed(ServletRequest request) {
+        request.setAttribute(TURN_FAILED, Boolean.TRUE);
+    }
+
+    private static boolean turnFailed(ServletRequest request, HttpServletResponse response) {
+        return response.getStatus() >= 500 || request.getAttribute(TURN_FAILED) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limiter.tryAcquire()) {
+            long retryAfter = limiter.retryAfterSeconds();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"The assistant is busy right now. Please try again in "
+                    + retryAfter + " seconds.\",\"nextAction\":\"retry\"}");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean released = false;
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = turnFailed(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(start));
+                released = true;
+            }
+        } finally {
+            if (!released) {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+        private final long start;
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        private ReleaseOnComplete(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            // Also called after onTimeout and onError
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            limiter.release(System.nanoTime() - start,
+                    failed.get() || turnFailed(event.getSuppliedRequest(), response));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed.set(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed.set(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -1,25 +1,43 @@
 package com.example.aitrade.config;
 
-import org.springframework.ai.chat.ChatClient;
+import com.example.aitrade.service.ChatEngine;
+import com.example.aitrade.service.ChatMetrics;
+import com.example.aitrade.service.LazyChatEngine;
+import com.example.aitrade.service.SpringAiChatEngine;
+import com.example.aitrade.service.XaiChatService;
 import org.springframework.ai.ollama.OllamaChatClient;
 import org.springframework.ai.ollama.api.OllamaApi;
 import org.springframework.ai.ollama.api.OllamaOptions;
 import org.springframework.ai.openai.OpenAiChatClient;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Lazy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Creates a client for every enabled AI engine. An engine is enabled by
+ * {@code app.engines.<name>.enabled} or by being the {@code app.active-ai-engine};
+ * the {@link com.example.aitrade.service.EngineRouter} routes between them.
+ *
+ * Only the active engine's client is built at startup; other enabled engines are
+ * {@link LazyChatEngine}s that build theirs on the first call routed to them.
+ */
 @Configuration
 public class ChatConfig {
     
     private static final Logger log = LoggerFactory.getLogger(ChatConfig.class);
     
+    @Value("${app.active-ai-engine:ollama}")
+    private String activeAiEngine;
     
     // Ollama Configuration
     @Value("${spring.ai.ollama.base-url}")
@@ -45,16 +63,17 @@ public class ChatConfig {
     private String groqModel;
     
     @Bean
-    @ConditionalOnProperty(name = "app.active-ai-engine", havingValue = "ollama", matchIfMissing = true)
+    @Lazy
+    @ConditionalOnExpression("${app.engines.ollama.enabled:false} or '${app.active-ai-engine:ollama}' == 'ollama'")
     public OllamaApi ollamaApi() {
         log.info("Configuring Ollama API with base URL: {}", ollamaBaseUrl);
         return new OllamaApi(ollamaBaseUrl);
     }
     
-    @Bean("chatClient")
-    @Primary
-    @ConditionalOnProperty(name = "app.active-ai-engine", havingValue = "ollama", matchIfMissing = true)
-    public ChatClient ollamaChatClient(OllamaApi ollamaApi) {
+    @Bean
+    @Lazy
+    @ConditionalOnExpression("${app.engines.ollama.enabled:false} or '${app.active-ai-engine:ollama}' == 'ollama'")
+    public OllamaChatClient ollamaChatClient(OllamaApi ollamaApi) {
         log.info("Creating Ollama ChatClient with model: {}", ollamaModel);
         return new OllamaChatClient(ollamaApi)
             .withDefaultOptions(OllamaOptions.create()
@@ -65,16 +84,26 @@ public class ChatConfig {
     }
     
     @Bean
-    @ConditionalOnProperty(name = "app.active-ai-engine", havingValue = "groq")
+    @ConditionalOnExpression("${app.engines.ollama.enabled:false} or '${app.active-ai-engine:ollama}' == 'ollama'")
+    public ChatEngine ollamaEngine(ObjectProvider<OllamaChatClient> ollamaChatClient, OllamaModelKeeper modelKeeper,
+                                   ChatMetrics chatMetrics) {
+        // The keeper times calls as cold or warm and counts them as model use between its pings
+        return engine("ollama", () -> modelKeeper.track(
+                new SpringAiChatEngine("ollama", ollamaChatClient.getObject(), chatMetrics)));
+    }
+    
+    @Bean
+    @Lazy
+    @ConditionalOnExpression("${app.engines.groq.enabled:false} or '${app.active-ai-engine:ollama}' == 'groq'")
     public OpenAiApi groqApi() {
         log.info("Configuring Groq API with base URL: {}", groqBaseUrl);
         return new OpenAiApi(groqBaseUrl, groqApiKey);
     }
     
-    @Bean("chatClient")
-    @Primary
-    @ConditionalOnProperty(name = "app.active-ai-engine", havingValue = "groq")
-    public ChatClient groqChatClient(OpenAiApi groqApi) {
+    @Bean
+    @Lazy
+    @ConditionalOnExpression("${app.engines.groq.enabled:false} or '${app.active-ai-engine:ollama}' == 'groq'")
+    public OpenAiChatClient groqChatClient(OpenAiApi groqApi) {
         log.info("Creating Groq ChatClient with model: {}", groqModel);
         return new OpenAiChatClient(groqApi,
             OpenAiChatOptions.builder()
@@ -85,5 +114,30 @@ public class ChatConfig {
         );
     }
     
-    // No explicit ChatClient bean needed - Spring will use the conditional beans above
-}
\ No newline at end of file
+    @Bean
+    @ConditionalOnExpression("${app.engines.groq.enabled:false} or '${app.active-ai-engine:ollama}' == 'groq'")
+    public ChatEngine groqEngine(ObjectProvider<OpenAiChatClient> groqChatClient, ChatMetrics chatMetrics) {
+        return engine("groq", () -> new SpringAiChatEngine("groq", groqChatClient.getObject(), chatMetrics));
+    }
+    
+    @Bean
+    @ConditionalOnExpression("${app.engines.grok.enabled:false} or '${app.active-ai-engine:ollama}' == 'grok'")
+    public ChatEngine grokEngine(@Value("${app.xai.api-key:}") String apiKey,
+                                 @Value("${app.xai.base-url:https://api.x.ai/v1}") String baseUrl,
+                                 @Value("${app.xai.model:grok-4-latest}") String model,
+                                 @Value("${app.xai.connect-timeout:5s}") Duration connectTimeout,
+                                 @Value("${app.xai.read-timeout:60s}") Duration readTimeout,
+                                 @Value("${app.xai.max-connections:32}") int maxConnections,
+                                 ChatMetrics chatMetrics) {
+        return engine("grok", () -> new XaiChatService(apiKey, baseUrl, model, connectTimeout, readTimeout,
+                maxConnections, chatMetrics));
+    }
+    
+    private ChatEngine engine(String name, Supplier<ChatEngine> factory) {
+        if (name.equals(activeAiEngine)) {
+            return factory.get();
+        }
+        log.info("Engine {} is a fallback; its client is created on first use", name);
+        return new LazyChatEngine(name, factory);
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.aitrade.config;
+
+import com.example.aitrade.service.ChatEngine;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the Ollama model loaded, so a chat turn after a quiet spell doesn't pay the model load
+ * time (tens of seconds for mistral).
+ *
+ * At startup the model is loaded with an empty generate request, retried for up to
+ * {@code warmup.timeout} while Ollama itself is still starting. When Ollama is the active engine
+ * this runs as an {@link ApplicationRunner}, so readiness only flips once it is done. When it is
+ * only routed to as a fallback, the warm-up runs in the background and doesn't hold up
+ * readiness. After that, a ping goes out
+ * whenever nothing has reached Ollama for {@code keep-alive.interval}. Each ping asks Ollama to
+ * keep the model for {@code keep-alive.duration}.
+ *
+ * Chat calls are timed as {@code chat.ollama.call{state}}. A call is "cold" if nothing reached
+ * the model within {@code keep-alive.duration} before it. Load time reported by Ollama for
+ * warm-up and pings is recorded as {@code chat.ollama.model.load}.
+ */
+@Component
+@ConditionalOnExpression("${app.engines.ollama.enabled:false} or '${app.active-ai-engine:ollama}' == 'ollama'")
+public class OllamaModelKeeper implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(OllamaModelKeeper.class);
+
+    private final String model;
+    private final URI generateUri;
+    private final boolean warmupEnabled;
+    private final boolean active;
+    private final long warmupTimeoutNanos;
+    private final String keepAlive;
+    private final long keepAliveNanos;
+    private final long intervalNanos;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // When a request last reached the model, or 0 if none has
+    private final AtomicLong lastUsedNanos = new AtomicLong();
+
+    private final Timer coldCalls;
+    private final Timer warmCalls;
+    private final Timer modelLoad;
+    private final Counter pingFailures;
+
+    public OllamaModelKeeper(@Value("${spring.ai.ollama.base-url}") String baseUrl,
+                             @Value("${spring.ai.ollama.chat.model}") String model,
+                             @Value("${app.ollama.warmup.enabled:true}") boolean warmupEnabled,
+                             @Value("${app.ollama.warmup.timeout:120s}") Duration warmupTimeout,
+                             @Value("${app.active-ai-engine:ollama}") String activeEngine,
+                             @Value("${app.ollama.keep-alive.duration:30m}") Duration keepAlive,
+                             @Value("${app.ollama.keep-alive.interval:4m}") Duration interval,
+                             MeterRegistry meterRegistry) {
+        this.model = model;
+        this.generateUri = URI.create(baseUrl.replaceAll("/+$", "") + "/api/generate");
+        this.warmupEnabled = warmupEnabled;
+        this.active = "ollama".equalsIgnoreCase(activeEngine);
+        this.warmupTimeoutNanos = warmupTimeout.toNanos();
+        this.keepAlive = keepAlive.toSeconds() + "s";
+        this.keepAliveNanos = keepAlive.toNanos();
+        this.intervalNanos = interval.toNanos();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        this.coldCalls = callTimer("cold", model, meterRegistry);
+        this.warmCalls = callTimer("warm", model, meterRegistry);
+        this.modelLoad = Timer.builder("chat.ollama.model.load")
+                .description("Model load time reported by Ollama for warm-up and keep-alive pings")
+                .tag("model", model)
+                .register(meterRegistry);
+        this.pingFailures = Counter.builder("chat.ollama.ping.failures").tag("model", model).register(meterRegistry);
+        Gauge.builder("chat.ollama.model.resident", this, keeper -> keeper.resident() ? 1 : 0)
+                .tag("model", model)
+                .register(meterRegistry);
+
+        log.info("Ollama model keeper for {}: warmup={} ({}), keep-alive {} with pings after {} idle",
+                model, warmupEnabled, active ? "blocking" : "background", keepAlive, interval);
+    }
+
+    private static Timer callTimer(String state, String model, MeterRegistry meterRegistry) {
+        return Timer.builder("chat.ollama.call")
+                .description("Ollama chat call latency, split by whether the model was expected to be loaded")
+                .tag("model", model)
+                .tag("state", state)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!warmupEnabled) {
+            return;
+        }
+        if (active) {
+            warmUp();
+        } else {
+            // A fallback engine shouldn't keep the app out of rotation while its model loads
+            Thread.ofVirtual().name("ollama-warmup").start(this::warmUp);
+        }
+    }
+
+    /**
+     * Load the model, retrying while Ollama is unreachable.
+     *
+     * @return false if the model could not be loaded within {@code warmup.timeout}
+     */
+    public boolean warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + warmupTimeoutNanos;
+        long backoffMillis = 250;
+        while (true) {
+            try {
+                ping();
+                log.info("Ollama model {} loaded in {} ms", model, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return true;
+            } catch (IOException e) {
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis) > deadline) {
+                    log.warn("Ollama model {} not loaded within warm-up timeout, first calls will be cold: {}",
+                            model, e.getMessage());
+                    return false;
+                }
+                log.debug("Ollama not ready for warm-up yet: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, 5_000);
+        }
+    }
+
+    /**
+     * Ping the model if nothing has reached it for {@code keep-alive.interval}; chat traffic
+     * keeps it loaded on its own.
+     */
+    @Scheduled(fixedDelayString = "${app.ollama.keep-alive.check-interval:30s}")
+    public void keepAlive() {
+        long last = lastUsedNanos.get();
+        if (last != 0 && System.nanoTime() - last < intervalNanos) {
+            return;
+        }
+        try {
+            ping();
+        } catch (IOException e) {
+            pingFailures.increment();
+            log.warn("Keep-alive ping for Ollama model {} failed: {}", model, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Time calls made through {@code engine} as cold or warm, and count them as model use.
+     */
+    public ChatEngine track(ChatEngine engine) {
+        return new TrackedEngine(engine);
+    }
+
+    boolean resident() {
+        long last = lastUsedNanos.get();
+        return last != 0 && System.nanoTime() - last < keepAliveNanos;
+    }
+
+    /**
+     * A generate request without a prompt only loads the model (and resets its keep-alive).
+     */
+    private void ping() throws IOException, InterruptedException {
+        byte[] body = objectMapper.writeValueAsBytes(Map.of("model", model, "keep_alive", keepAlive));
+        HttpRequest request = HttpRequest.newBuilder(generateUri)
+                .timeout(Duration.ofNanos(Math.max(warmupTimeoutNanos, TimeUnit.SECONDS.toNanos(30))))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400) {
+            throw new IOException("Ollama returned HTTP " + response.statusCode() + " for model " + model);
+        }
+        lastUsedNanos.set(System.nanoTime());
+        JsonNode loadDuration = objectMapper.readTree(response.body()).path("load_duration");
+        if (loadDuration.isNumber()) {
+            modelLoad.record(loadDuration.asLong(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final class TrackedEngine implements ChatEngine {
+        private final ChatEngine delegate;
+
+        private TrackedEngine(ChatEngine delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String name() {
+            return delegate.name();
+        }
+
+        @Override
+        public String call(List<Message> messages) throws Exception {
+            Timer timer = resident() ? warmCalls : coldCalls;
+            long start = System.nanoTime();
+            String reply = delegate.call(messages);
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            lastUsedNanos.set(System.nanoTime());
+            return reply;
+        }
+
+        @Override
+        public String stream(List<Message> messages, Consumer<String> onToken) throws Exception {
+            Timer timer = resident() ? warmCalls : coldCalls;
+            long start = System.nanoTime();
+            String reply = delegate.stream(messages, onToken);
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            lastUsedNanos.set(System.nanoTime());
+            return reply;
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package com.example.aitrade.controller;
 
+import com.example.aitrade.config.ChatAdmissionFilter;
 import com.example.aitrade.model.ChatRequest;
 import com.example.aitrade.model.ChatResponse;
+import com.example.aitrade.model.ExtractionResult;
+import com.example.aitrade.model.TradespersonMatch;
 import com.example.aitrade.service.ChatService;
+import com.example.aitrade.service.RequestRateLimiter;
+import com.example.aitrade.service.StreamExecutor;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -18,41 +31,105 @@ public class ChatController {
     
     private final ChatService chatService;
     
-    public ChatController(ChatService chatService) {
+    private final RequestRateLimiter rateLimiter;
+    
+    // Streams hold their thread for the whole completion; bounded and shut down with the app
+    private final StreamExecutor streamExecutor;
+    
+    @Value("${app.streaming.timeout-ms:120000}")
+    private long streamTimeoutMs;
+    
+    public ChatController(ChatService chatService, RequestRateLimiter rateLimiter, StreamExecutor streamExecutor) {
         this.chatService = chatService;
+        this.rateLimiter = rateLimiter;
+        this.streamExecutor = streamExecutor;
     }
     
     @PostMapping("/message")
-    public ResponseEntity<ChatResponse> sendMessage(@Valid @RequestBody ChatRequest request) {
-        log.info("Received chat message from user type: {}", request.getUserType());
+    public ResponseEntity<ChatResponse> sendMessage(@Valid @RequestBody ChatRequest request,
+                                                    HttpServletRequest httpRequest) {
+        log.debug("Received chat message from user type: {}", request.getUserType());
+        checkRateLimit(request, httpRequest);
         
         ChatResponse response = chatService.processMessage(request);
+        reportFailure(response, httpRequest);
         
         return ResponseEntity.ok(response);
     }
     
     @PostMapping("/customer")
-    public ResponseEntity<ChatResponse> customerMessage(@Valid @RequestBody ChatRequest request) {
+    public ResponseEntity<ChatResponse> customerMessage(@Valid @RequestBody ChatRequest request,
+                                                        HttpServletRequest httpRequest) {
         request.setUserType(ChatRequest.UserType.CUSTOMER);
-        return sendMessage(request);
+        return sendMessage(request, httpRequest);
     }
     
     @PostMapping("/tradesperson")  
-    public ResponseEntity<ChatResponse> tradespersonMessage(@Valid @RequestBody ChatRequest request) {
+    public ResponseEntity<ChatResponse> tradespersonMessage(@Valid @RequestBody ChatRequest request,
+                                                            HttpServletRequest httpRequest) {
         request.setUserType(ChatRequest.UserType.TRADESPERSON);
-        return sendMessage(request);
+        return sendMessage(request, httpRequest);
+    }
+    
+    /**
+     * Stream the reply as Server-Sent Events: a "token" event per delta, then a "done" event
+     * carrying the full ChatResponse once history and extraction are committed.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@Valid @RequestBody ChatRequest request, HttpServletRequest httpRequest) {
+        log.debug("Received streaming chat message from user type: {}", request.getUserType());
+        checkRateLimit(request, httpRequest);
+        
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        streamExecutor.submit(() -> {
+            try {
+                ChatResponse response = chatService.streamMessage(request, token -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(Map.of("t", token), MediaType.APPLICATION_JSON));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Client disconnected", e);
+                    }
+                });
+                // Before completing, so the admission filter sees it when it releases the slot
+                reportFailure(response, httpRequest);
+                emitter.send(SseEmitter.event().name("done").data(response, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (Exception e) {
+                log.warn("Streaming chat message failed: {}", e.getMessage());
+                ChatAdmissionFilter.markFailed(httpRequest);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
     }
     
     // ========== AI-POWERED EXTRACTION WITH THREE ENGINE SUPPORT ==========
     
     @PostMapping("/ai-extract")
-    public ResponseEntity<ChatResponse> aiExtractionDemo(@Valid @RequestBody ChatRequest request) {
+    public ResponseEntity<ChatResponse> aiExtractionDemo(@Valid @RequestBody ChatRequest request,
+                                                         HttpServletRequest httpRequest) {
         log.info("Processing with AI-powered extraction using engine: {} for user type: {}", 
                 System.getenv("ACTIVE_AI_ENGINE"), request.getUserType());
+        checkRateLimit(request, httpRequest);
         ChatResponse response = chatService.processMessage(request);
+        reportFailure(response, httpRequest);
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/session/{sessionId}/extraction")
+    public ResponseEntity<ExtractionResult> getExtraction(@PathVariable String sessionId) {
+        return chatService.getLatestExtraction(sessionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/session/{sessionId}/matches")
+    public ResponseEntity<List<TradespersonMatch>> getMatches(@PathVariable String sessionId) {
+        return chatService.getMatches(sessionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
     @DeleteMapping("/session/{sessionId}")
     public ResponseEntity<Void> clearSession(@PathVariable String sessionId) {
         log.info("Clearing session: {}", sessionId);
@@ -60,6 +137,18 @@ public class ChatController {
         return ResponseEntity.ok().build();
     }
     
+    private void checkRateLimit(ChatRequest request, HttpServletRequest httpRequest) {
+        rateLimiter.check(request.getUserType(), request.getUserId(), request.getSessionId(),
+                httpRequest.getRemoteAddr());
+    }
+    
+    // Failed turns still answer 200, so tell the admission limiter they failed
+    private void reportFailure(ChatResponse response, HttpServletRequest httpRequest) {
+        if (response.isFailed()) {
+            ChatAdmissionFilter.markFailed(httpRequest);
+        }
+    }
+    
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("AI Trade Platform Chat Service is running!");
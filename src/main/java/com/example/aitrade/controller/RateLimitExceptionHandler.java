@@ -0,0 +1,37 @@
+package com.example.aitrade.controller;
+
+import com.example.aitrade.service.RequestRateLimiter;
+import com.example.aitrade.service.StreamExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns rate-limit and stream-capacity rejections into 429 with Retry-After for every chat endpoint.
+ */
+@RestControllerAdvice
+public class RateLimitExceptionHandler {
+
+    @ExceptionHandler(RequestRateLimiter.RateLimitExceededException.class)
+    public ResponseEntity<String> rateLimited(RequestRateLimiter.RateLimitExceededException e) {
+        long retryAfter = e.getRetryAfterSeconds();
+        // Content type set up front so the streaming endpoint (Accept: text/event-stream) gets it too
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"You're sending messages too quickly. Please try again in "
+                        + retryAfter + " seconds.\",\"nextAction\":\"retry\"}");
+    }
+
+    @ExceptionHandler(StreamExecutor.StreamsBusyException.class)
+    public ResponseEntity<String> streamsBusy(StreamExecutor.StreamsBusyException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"The assistant is busy right now. Please try again in a moment.\","
+                        + "\"nextAction\":\"retry\"}");
+    }
+}
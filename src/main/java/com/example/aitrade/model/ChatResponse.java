@@ -1,6 +1,9 @@
 package com.example.aitrade.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 public class ChatResponse {
@@ -19,6 +22,13 @@ public class ChatResponse {
     
     private boolean requiresMoreInfo;
     
+    private boolean extractionPending;
+    
+    private List<TradespersonMatch> matches;
+    
+    // The turn failed and this is the apology; kept out of the JSON, where nextAction "retry" says so
+    private boolean failed;
+    
     public ChatResponse() {}
     
     public ChatResponse(String message, String sessionId, LocalDateTime timestamp, 
@@ -91,6 +101,31 @@ public class ChatResponse {
         this.requiresMoreInfo = requiresMoreInfo;
     }
     
+    public boolean isExtractionPending() {
+        return extractionPending;
+    }
+    
+    public void setExtractionPending(boolean extractionPending) {
+        this.extractionPending = extractionPending;
+    }
+    
+    public List<TradespersonMatch> getMatches() {
+        return matches;
+    }
+    
+    public void setMatches(List<TradespersonMatch> matches) {
+        this.matches = matches;
+    }
+    
+    @JsonIgnore
+    public boolean isFailed() {
+        return failed;
+    }
+    
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+    
     public static class Builder {
         private String message;
         private String sessionId;
@@ -98,6 +133,9 @@ public class ChatResponse {
         private Map<String, Object> extractedInfo;
         private String nextAction;
         private boolean requiresMoreInfo;
+        private boolean extractionPending;
+        private List<TradespersonMatch> matches;
+        private boolean failed;
         
         public Builder message(String message) {
             this.message = message;
@@ -129,8 +167,27 @@ public class ChatResponse {
             return this;
         }
         
+        public Builder extractionPending(boolean extractionPending) {
+            this.extractionPending = extractionPending;
+            return this;
+        }
+        
+        public Builder matches(List<TradespersonMatch> matches) {
+            this.matches = matches;
+            return this;
+        }
+        
+        public Builder failed(boolean failed) {
+            this.failed = failed;
+            return this;
+        }
+        
         public ChatResponse build() {
-            return new ChatResponse(message, sessionId, timestamp, extractedInfo, nextAction, requiresMoreInfo);
+            ChatResponse response = new ChatResponse(message, sessionId, timestamp, extractedInfo, nextAction, requiresMoreInfo);
+            response.setExtractionPending(extractionPending);
+            response.setMatches(matches);
+            response.setFailed(failed);
+            return response;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.aitrade.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Latest extraction outcome for a session, as served by the extraction endpoint.
+ */
+public record ExtractionResult(
+    String sessionId,
+    Status status,
+    Map<String, Object> extractedInfo,
+    boolean requiresMoreInfo,
+    String nextAction,
+    LocalDateTime updatedAt
+) {
+    
+    /**
+     * FAILED keeps the provisional fields that were served while the extraction was pending.
+     */
+    public enum Status {
+        PENDING, COMPLETE, FAILED
+    }
+}
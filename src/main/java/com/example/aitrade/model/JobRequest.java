@@ -1,5 +1,12 @@
 package com.example.aitrade.model;
 
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,13 +14,23 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
+@Entity
+@Table(name = "job_request", indexes = {@Index(columnList = "customerId"), @Index(columnList = "sessionId")})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class JobRequest {
     
+    // Sequence ids (not identity) so Hibernate can batch inserts; allocationSize matches the batch size
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_request_seq")
+    @SequenceGenerator(name = "job_request_seq", sequenceName = "job_request_seq", allocationSize = 50)
+    private Long id;
+    
     private String customerId;
+    // One job per conversation: later extractions of the session update this row
+    private String sessionId;
     private String serviceType;
     private String location;
     private String description;
@@ -21,4 +38,4 @@ public class JobRequest {
     private String urgency;
     private LocalDateTime createdAt;
     private String status;
-}
\ No newline at end of file
+}
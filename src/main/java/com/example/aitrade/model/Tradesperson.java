@@ -0,0 +1,41 @@
+package com.example.aitrade.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored tradesperson profile, built from a {@link TradespersonProfile} extraction.
+ */
+@Entity
+@Table(name = "tradesperson", indexes = @Index(columnList = "tradespersonId"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Tradesperson {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tradesperson_seq")
+    @SequenceGenerator(name = "tradesperson_seq", sequenceName = "tradesperson_seq", allocationSize = 50)
+    private Long id;
+    
+    private String tradespersonId;
+    // Comma-separated, kept in the row so a profile is a single batched insert
+    private String tradeSkills;
+    private Boolean qualified;
+    private String availability;
+    private String serviceAreas;
+    private String experienceLevel;
+    private LocalDateTime createdAt;
+}
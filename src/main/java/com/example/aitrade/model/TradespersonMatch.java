@@ -0,0 +1,20 @@
+package com.example.aitrade.model;
+
+import java.util.List;
+
+/**
+ * A tradesperson ranked for a customer's service request; lower scores rank higher.
+ *
+ * @param distanceKm distance from the job to the nearest area served
+ */
+public record TradespersonMatch(
+    String tradespersonId,
+    Double distanceKm,
+    double score,
+    List<String> tradeSkills,
+    List<String> serviceAreas,
+    String availability,
+    String experienceLevel,
+    Boolean qualified
+) {
+}
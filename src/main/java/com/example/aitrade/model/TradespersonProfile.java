@@ -0,0 +1,33 @@
+package com.example.aitrade.model;
+
+import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import java.util.List;
+
+@JsonClassDescription("Tradesperson profile information extracted from natural language")
+public record TradespersonProfile(
+    @JsonPropertyDescription("Trade skills mentioned (e.g., 'rewiring', 'boiler repair')")
+    List<String> tradeSkills,
+    
+    @JsonPropertyDescription("Whether the tradesperson is qualified or certified")
+    Boolean qualified,
+    
+    @JsonPropertyDescription("Current availability: AVAILABLE, BUSY, or UNKNOWN")
+    Availability availability,
+    
+    @JsonPropertyDescription("Areas served (cities, regions or postcodes)")
+    List<String> serviceAreas,
+    
+    @JsonPropertyDescription("Experience level: BEGINNER, INTERMEDIATE, EXPERT, or UNKNOWN")
+    ExperienceLevel experienceLevel
+) {
+    
+    public enum Availability {
+        AVAILABLE, BUSY, UNKNOWN
+    }
+    
+    public enum ExperienceLevel {
+        BEGINNER, INTERMEDIATE, EXPERT, UNKNOWN
+    }
+}
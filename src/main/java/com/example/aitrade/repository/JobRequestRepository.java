@@ -0,0 +1,12 @@
+package com.example.aitrade.repository;
+
+import com.example.aitrade.model.JobRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface JobRequestRepository extends JpaRepository<JobRequest, Long> {
+
+    List<JobRequest> findBySessionIdIn(Collection<String> sessionIds);
+}
@@ -0,0 +1,12 @@
+package com.example.aitrade.repository;
+
+import com.example.aitrade.model.Tradesperson;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TradespersonRepository extends JpaRepository<Tradesperson, Long> {
+
+    List<Tradesperson> findByTradespersonIdIn(Collection<String> tradespersonIds);
+}
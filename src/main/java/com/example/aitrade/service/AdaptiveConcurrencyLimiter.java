@@ -0,0 +1,133 @@
+package com.example.aitrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit for chat requests that adapts to observed latency, so excess load is
+ * turned away up front instead of queueing on the engines.
+ *
+ * Each completed request compares its latency with a long-run average: while latency stays
+ * within {@code tolerance} times the average the limit grows by about {@code sqrt(limit)},
+ * and as it stretches beyond that the limit shrinks by up to half (gradient). Failed requests
+ * cut the limit by {@code backoff-ratio} (multiplicative decrease). Samples taken while less
+ * than half the limit was in use don't move it, since they say nothing about capacity.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final double longWindowAlpha;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Written under the monitor, read without it on the acquire path
+    private volatile double limit;
+    private volatile double longLatencyNanos;
+
+    private final Counter rejected;
+
+    public AdaptiveConcurrencyLimiter(@Value("${app.admission.enabled:true}") boolean enabled,
+                                      @Value("${app.admission.initial-limit:64}") int initialLimit,
+                                      @Value("${app.admission.min-limit:8}") int minLimit,
+                                      @Value("${app.admission.max-limit:512}") int maxLimit,
+                                      @Value("${app.admission.tolerance:2.0}") double tolerance,
+                                      @Value("${app.admission.smoothing:0.2}") double smoothing,
+                                      @Value("${app.admission.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${app.admission.long-window:600}") int longWindow,
+                                      MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.longWindowAlpha = 2.0 / (longWindow + 1);
+        this.limit = initialLimit;
+
+        this.rejected = Counter.builder("chat.admission.rejected")
+                .description("Chat requests turned away with 429 by the concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.limit", this, limiter -> limiter.limit).register(meterRegistry);
+        Gauge.builder("chat.admission.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("chat.admission.latency.baseline", this, limiter -> limiter.longLatencyNanos / 1e9)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        log.info("Chat admission control: enabled={}, initialLimit={}, minLimit={}, maxLimit={}, tolerance={}",
+                enabled, initialLimit, minLimit, maxLimit, tolerance);
+    }
+
+    /**
+     * Take a slot for a request. Every successful acquire must be matched by {@link #release}.
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param latencyNanos how long the request held its slot
+     * @param failed whether the request failed or timed out
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        if (enabled) {
+            update(latencyNanos, inFlightAtRelease, failed);
+        }
+    }
+
+    /**
+     * Seconds a rejected client should wait: about one typical request, at least a second.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(longLatencyNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    public int currentLimit() {
+        return (int) limit;
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightAtRelease, boolean failed) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            return;
+        }
+        double baseline = longLatencyNanos == 0
+                ? latencyNanos
+                : longLatencyNanos + (latencyNanos - longLatencyNanos) * longWindowAlpha;
+        longLatencyNanos = baseline;
+        if (inFlightAtRelease < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / Math.max(1, latencyNanos)));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+}
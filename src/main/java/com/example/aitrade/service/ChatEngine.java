@@ -0,0 +1,28 @@
+package com.example.aitrade.service;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One configured AI engine (Ollama, Groq, xAI) as seen by the {@link EngineRouter}.
+ *
+ * Implementations throw on any failure so the router can count it and fail over; they
+ * record their own token usage.
+ */
+public interface ChatEngine {
+
+    /**
+     * Engine name used in configuration and metric tags ("ollama", "groq", "grok").
+     */
+    String name();
+
+    String call(List<Message> messages) throws Exception;
+
+    /**
+     * Stream the reply to {@code onToken} and return it in full. Engines that can't stream
+     * deliver the whole reply as a single token.
+     */
+    String stream(List<Message> messages, Consumer<String> onToken) throws Exception;
+}
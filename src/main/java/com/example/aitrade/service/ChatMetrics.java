@@ -0,0 +1,128 @@
+package com.example.aitrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the stages of a chat turn.
+ *
+ * <ul>
+ *   <li>{@code chat.turn} - whole turn, by engine, mode (blocking/stream) and outcome</li>
+ *   <li>{@code chat.turn.stage} - history lookup, prompt build, extraction and JSON parse, by engine</li>
+ *   <li>{@code chat.llm.call} - time inside the engine, by engine, model, call (chat/extraction/stream) and outcome</li>
+ *   <li>{@code chat.llm.tokens} - prompt and completion tokens per call, provider-reported where available,
+ *       plus prompt tokens served from the provider's prefix cache where it reports them</li>
+ *   <li>{@code chat.extraction.fallback} - turns that fell back to keyword extraction, by reason</li>
+ * </ul>
+ *
+ * Latency meters publish percentile histograms so per-engine SLOs can be computed from the
+ * Prometheus scrape.
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String STAGE_HISTORY = "history";
+    public static final String STAGE_PROMPT = "prompt";
+    public static final String STAGE_EXTRACTION = "extraction";
+    public static final String STAGE_PARSE = "parse";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, String> modelsByEngine;
+
+    public ChatMetrics(MeterRegistry meterRegistry,
+                       @Value("${spring.ai.ollama.chat.model:}") String ollamaModel,
+                       @Value("${spring.ai.openai.chat.model:}") String groqModel,
+                       @Value("${app.xai.model:}") String grokModel) {
+        this.meterRegistry = meterRegistry;
+        this.modelsByEngine = Map.of("ollama", ollamaModel, "groq", groqModel, "grok", grokModel);
+    }
+
+    public String modelFor(String engine) {
+        return modelsByEngine.getOrDefault(engine, "");
+    }
+
+    public <T> T stage(String stage, String engine, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordStage(stage, engine, System.nanoTime() - start);
+        }
+    }
+
+    public void recordStage(String stage, String engine, long nanos) {
+        Timer.builder("chat.turn.stage")
+                .description("Time spent in one stage of a chat turn")
+                .tag("stage", stage)
+                .tag("engine", engine)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTurn(String engine, String mode, boolean success, long nanos) {
+        Timer.builder("chat.turn")
+                .description("End-to-end chat turn latency")
+                .tag("engine", engine)
+                .tag("mode", mode)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param outcome "success", "error", or "cancelled" for the losing side of a hedged call
+     */
+    public void recordLlmCall(String engine, String call, String outcome, long nanos) {
+        Timer.builder("chat.llm.call")
+                .description("Time inside the AI engine per call")
+                .tag("engine", engine)
+                .tag("model", modelFor(engine))
+                .tag("call", call)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokens(String engine, long promptTokens, long completionTokens) {
+        tokens(engine, "prompt").record(promptTokens);
+        tokens(engine, "completion").record(completionTokens);
+    }
+
+    /**
+     * Prompt tokens the provider served from its prefix cache, for providers that report them.
+     */
+    public void recordCachedTokens(String engine, long cachedTokens) {
+        tokens(engine, "cached").record(cachedTokens);
+    }
+
+    public void recordFallback(String reason) {
+        Counter.builder("chat.extraction.fallback")
+                .description("Extractions answered by keyword matching instead of the AI engine")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private DistributionSummary tokens(String engine, String type) {
+        return DistributionSummary.builder("chat.llm.tokens")
+                .description("Tokens per AI engine call")
+                .baseUnit("tokens")
+                .tag("engine", engine)
+                .tag("model", modelFor(engine))
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(131072.0)
+                .register(meterRegistry);
+    }
+}
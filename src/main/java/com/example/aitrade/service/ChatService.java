@@ -2,143 +2,440 @@ package com.example.aitrade.service;
 
 import com.example.aitrade.model.ChatRequest;
 import com.example.aitrade.model.ChatResponse;
+import com.example.aitrade.model.ExtractionResult;
+import com.example.aitrade.model.ServiceRequest;
+import com.example.aitrade.model.Tradesperson;
+import com.example.aitrade.model.TradespersonMatch;
+import com.example.aitrade.session.ConversationStore;
+import com.example.aitrade.session.SessionLocks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.ChatClient;
-
+import org.slf4j.MDC;
+import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
-import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
 public class ChatService {
     
     private static final Logger log = LoggerFactory.getLogger(ChatService.class);
     
-    private final ChatClient chatClient;
+    private static final List<String> URGENT_KEYWORDS = List.of(
+            "urgent", "emergency", "asap", "burst", "flood", "no power", "no heating", "no hot water", "smell gas");
+    
+    private final EngineRouter engineRouter;
+    
+    private final ConversationStore conversationStore;
+    
+    private final ContextWindowManager contextWindowManager;
+    
+    private final SessionLocks sessionLocks;
+    
+    private final CombinedReplyParser combinedReplyParser;
+    
+    private final SystemPrompts systemPrompts;
+    
+    private final ExtractionExecutor extractionExecutor;
+    
+    private final ExtractionCache extractionCache;
+    
+    private final ExtractionParser extractionParser;
+    
+    private final ExtractionWriter extractionWriter;
+    
+    private final TradespersonMatcher tradespersonMatcher;
+    
+    private final RequestCoalescer requestCoalescer;
+    
+    private final PayloadLogger payloadLogger;
     
-    @Autowired(required = false)
-    private XaiChatService xaiChatService;
+    private final ChatMetrics chatMetrics;
     
-    @Value("${app.active-ai-engine:ollama}")
-    private String activeAiEngine;
+    private final Timer timeToFirstToken;
     
-    public ChatService(ChatClient chatClient) {
-        this.chatClient = chatClient;
+    // Engine that metrics and cache keys are accounted to; the router may serve the call elsewhere
+    private final String activeAiEngine;
+    
+    // Prompt token budget of the smallest engine the router may fail over to
+    private final int windowBudget;
+    
+    // "separate" = reply and extraction in two calls, "combined" = one structured call
+    @Value("${app.extraction.mode:separate}")
+    private String extractionMode;
+    
+    // Return the reply before the separate extraction call finishes
+    @Value("${app.extraction.async:true}")
+    private boolean asyncExtraction;
+    
+    public ChatService(EngineRouter engineRouter, ConversationStore conversationStore,
+                       ContextWindowManager contextWindowManager, SessionLocks sessionLocks,
+                       CombinedReplyParser combinedReplyParser, SystemPrompts systemPrompts,
+                       ExtractionExecutor extractionExecutor, ExtractionCache extractionCache,
+                       ExtractionParser extractionParser, ExtractionWriter extractionWriter,
+                       TradespersonMatcher tradespersonMatcher,
+                       RequestCoalescer requestCoalescer, PayloadLogger payloadLogger,
+                       ChatMetrics chatMetrics, MeterRegistry meterRegistry) {
+        this.engineRouter = engineRouter;
+        this.conversationStore = conversationStore;
+        this.contextWindowManager = contextWindowManager;
+        this.sessionLocks = sessionLocks;
+        this.combinedReplyParser = combinedReplyParser;
+        this.systemPrompts = systemPrompts;
+        this.extractionExecutor = extractionExecutor;
+        this.extractionCache = extractionCache;
+        this.extractionParser = extractionParser;
+        this.extractionWriter = extractionWriter;
+        this.tradespersonMatcher = tradespersonMatcher;
+        this.requestCoalescer = requestCoalescer;
+        this.payloadLogger = payloadLogger;
+        this.chatMetrics = chatMetrics;
+        this.activeAiEngine = engineRouter.preferredEngine();
+        this.windowBudget = contextWindowManager.budgetFor(engineRouter.engineNames());
+        this.timeToFirstToken = Timer.builder("chat.stream.ttft")
+                .description("Time from stream start to first reply token")
+                .tag("engine", activeAiEngine)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
     }
     
-    @Value("${app.ai-agent.system-message}")
-    private String systemMessage;
-
     private String bla;
     
-    // In-memory conversation history (use Redis/Database in production)
-    private final Map<String, List<Message>> conversationHistory = new ConcurrentHashMap<>();
-    
     public ChatResponse processMessage(ChatRequest request) {
-        log.info("Processing message for user type: {} with session: {}", 
-                request.getUserType(), request.getSessionId());
-        
         String sessionId = request.getSessionId() != null ? 
                 request.getSessionId() : generateSessionId();
         
-        // Build conversation context
-        List<Message> messages = getOrCreateConversationHistory(sessionId);
-        
-        // Add user message
-        messages.add(new UserMessage(request.getMessage()));
-        
-        // Create prompt with system message and conversation history
-        List<Message> promptMessages = new ArrayList<>();
-        promptMessages.add(new SystemMessage(getSystemMessageForUserType(request.getUserType())));
-        promptMessages.addAll(messages);
+        // Every log line of the turn, including async extraction, carries its turn and session id
+        try (MDC.MDCCloseable turn = MDC.putCloseable("turnId", newTurnId());
+             MDC.MDCCloseable session = MDC.putCloseable("sessionId", sessionId)) {
+            log.debug("Processing message for user type: {}", request.getUserType());
+            
+            // Turns within a session run one at a time so history stays ordered
+            long start = System.nanoTime();
+            return sessionLocks.withSessionLock(sessionId, () -> processTurn(request, sessionId, start));
+        }
+    }
+    
+    /**
+     * Run a turn while streaming reply tokens to {@code onToken} as they arrive.
+     * History and extraction are committed once the stream completes.
+     */
+    public ChatResponse streamMessage(ChatRequest request, Consumer<String> onToken) {
+        String sessionId = request.getSessionId() != null ? 
+                request.getSessionId() : generateSessionId();
         
+        try (MDC.MDCCloseable turn = MDC.putCloseable("turnId", newTurnId());
+             MDC.MDCCloseable session = MDC.putCloseable("sessionId", sessionId)) {
+            long start = System.nanoTime();
+            return sessionLocks.withSessionLock(sessionId, () -> streamTurn(request, sessionId, onToken, start));
+        }
+    }
+    
+    private ChatResponse processTurn(ChatRequest request, String sessionId, long startNanos) {
+        boolean combined = "combined".equalsIgnoreCase(extractionMode);
+        String systemPrompt = combined
+                ? systemPrompts.combined(request.getUserType())
+                : systemPrompts.plain(request.getUserType());
+        PreparedTurn turn = prepareTurn(request, sessionId, systemPrompt);
+        List<Message> promptMessages = turn.promptMessages();
+        LlmPriority priority = classify(request, sessionId);
         
         try {
-            String responseMessage;
+            String responseMessage = callChat(promptMessages, "chat", priority);
+            Map<String, Object> extractedInfo = null;
             
-            // Use different AI service based on configuration
-            if ("grok".equals(activeAiEngine) && xaiChatService != null) {
-                log.info("Using custom xAI service for engine: {}", activeAiEngine);
-                // Create a combined message with system prompt and user message
-                String combinedMessage = getSystemMessageForUserType(request.getUserType()) + "\n\nUser: " + request.getMessage();
-                responseMessage = xaiChatService.callXaiApi(combinedMessage);
-            } else {
-                log.info("Using Spring AI ChatClient for engine: {}", activeAiEngine);
-                // Call via Spring AI (supports both Ollama and Groq)
-                org.springframework.ai.chat.ChatResponse aiResponse = chatClient.call(new Prompt(promptMessages));
-                responseMessage = aiResponse.getResult().getOutput().getContent();
+            if (combined) {
+                Optional<CombinedReplyParser.CombinedReply> parsed =
+                        combinedReplyParser.parse(responseMessage, request.getUserType());
+                if (parsed.isPresent()) {
+                    responseMessage = parsed.get().reply();
+                    extractedInfo = parsed.get().extractedInfo();
+                    extractedInfo.put("messageLength", request.getMessage().length());
+                    extractedInfo.put("timestamp", LocalDateTime.now());
+                } else if (combinedReplyParser.looksStructured(responseMessage)) {
+                    // Broken structured output is not fit to show; redo the plain chat call
+                    log.warn("Combined reply for session {} did not parse, falling back to separate calls", sessionId);
+                    List<Message> plainMessages = new ArrayList<>(promptMessages);
+                    plainMessages.set(0, new SystemMessage(systemPrompts.plain(request.getUserType())));
+                    responseMessage = callChat(plainMessages, "chat", priority);
+                } else {
+                    log.warn("Combined reply for session {} was plain text, extracting separately", sessionId);
+                }
             }
             
-            // Add AI response to conversation history
-            messages.add(new SystemMessage(responseMessage));
-            
-            // Extract structured information from the conversation
-            Map<String, Object> extractedInfo = extractInformation(request, responseMessage);
-            
-            return ChatResponse.builder()
-                    .message(responseMessage)
-                    .sessionId(sessionId)
-                    .timestamp(LocalDateTime.now())
-                    .extractedInfo(extractedInfo)
-                    .requiresMoreInfo(determineIfMoreInfoNeeded(extractedInfo, request.getUserType()))
-                    .nextAction(determineNextAction(extractedInfo, request.getUserType()))
-                    .build();
+            ChatResponse response = completeTurn(request, sessionId, responseMessage, extractedInfo, priority,
+                    turn.opening());
+            chatMetrics.recordTurn(activeAiEngine, "blocking", true, System.nanoTime() - startNanos);
+            return response;
                     
         } catch (Exception e) {
             log.error("Error processing chat message", e);
-            return ChatResponse.builder()
-                    .message("I'm sorry, I'm having trouble processing your request right now. Please try again.")
-                    .sessionId(sessionId)
-                    .timestamp(LocalDateTime.now())
-                    .extractedInfo(new HashMap<>())
-                    .requiresMoreInfo(false)
-                    .nextAction("retry")
-                    .build();
+            chatMetrics.recordTurn(activeAiEngine, "blocking", false, System.nanoTime() - startNanos);
+            return errorResponse(sessionId);
+        }
+    }
+    
+    private ChatResponse streamTurn(ChatRequest request, String sessionId, Consumer<String> onToken, long startNanos) {
+        // Structured replies can't be shown token by token, so streaming always extracts separately
+        PreparedTurn turn = prepareTurn(request, sessionId, systemPrompts.plain(request.getUserType()));
+        List<Message> promptMessages = turn.promptMessages();
+        LlmPriority priority = classify(request, sessionId);
+        
+        try {
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            Consumer<String> timedOnToken = token -> {
+                if (first.compareAndSet(true, false)) {
+                    timeToFirstToken.record(Duration.ofNanos(System.nanoTime() - start));
+                }
+                onToken.accept(token);
+            };
+            
+            String responseMessage = engineRouter.stream(priority, promptMessages, timedOnToken);
+            payloadLogger.log("stream", promptMessages, responseMessage);
+            
+            ChatResponse response = completeTurn(request, sessionId, responseMessage, null, priority, turn.opening());
+            chatMetrics.recordTurn(activeAiEngine, "stream", true, System.nanoTime() - startNanos);
+            return response;
+            
+        } catch (Exception e) {
+            log.error("Error streaming chat message", e);
+            chatMetrics.recordTurn(activeAiEngine, "stream", false, System.nanoTime() - startNanos);
+            return errorResponse(sessionId);
         }
     }
     
-    private List<Message> getOrCreateConversationHistory(String sessionId) {
-        return conversationHistory.computeIfAbsent(sessionId, k -> new ArrayList<>());
+    /**
+     * Record the user message and build the prompt for this turn.
+     */
+    private PreparedTurn prepareTurn(ChatRequest request, String sessionId, String systemPrompt) {
+        // Build conversation context
+        List<Message> history = chatMetrics.stage(ChatMetrics.STAGE_HISTORY, activeAiEngine,
+                () -> conversationStore.getHistory(sessionId));
+        
+        // Add user message
+        UserMessage userMessage = new UserMessage(request.getMessage());
+        conversationStore.append(sessionId, List.of(userMessage));
+        
+        // Create prompt with system message and as much history as fits every candidate engine
+        ContextWindowManager.ContextWindow window = chatMetrics.stage(ChatMetrics.STAGE_PROMPT, activeAiEngine,
+                () -> contextWindowManager.buildWindow(sessionId, activeAiEngine, windowBudget, systemPrompt,
+                        history, userMessage));
+        log.debug("Prompt for session {}: {} tokens (full history: {})",
+                sessionId, window.promptTokens(), window.untrimmedTokens());
+        return new PreparedTurn(window.messages(), history.isEmpty());
     }
     
-    private String getSystemMessageForUserType(ChatRequest.UserType userType) {
-        return systemMessage + "\n\nCurrent user type: " + userType.name();
+    /**
+     * @param opening whether this is the session's first message, so that it stands on its own
+     */
+    private record PreparedTurn(List<Message> promptMessages, boolean opening) {
     }
     
-    private Map<String, Object> extractInformation(ChatRequest request, String aiResponse) {
+    /**
+     * Commit the reply to history, run or queue extraction and build the response.
+     *
+     * @param extractedInfo fields already extracted alongside the reply, or null to extract now
+     * @param priority scheduling class for an extraction call made inline
+     * @param opening whether this is the session's first message (see {@link #extractInformation})
+     */
+    private ChatResponse completeTurn(ChatRequest request, String sessionId, String responseMessage,
+                                      Map<String, Object> extractedInfo, LlmPriority priority, boolean opening) {
+        // Add AI response to conversation history
+        conversationStore.append(sessionId, List.of(new AssistantMessage(responseMessage)));
+        
+        // Extract structured information from the conversation
+        boolean extractionPending = false;
+        if (extractedInfo == null && asyncExtraction) {
+            extractedInfo = submitAsyncExtraction(request, sessionId, responseMessage, opening);
+            extractionPending = extractedInfo != null;
+        }
+        if (extractedInfo == null) {
+            extractedInfo = extractInformation(request, responseMessage, priority, opening);
+        }
+        if (!extractionPending) {
+            extractionExecutor.complete(sessionId, finishExtraction(sessionId, request, extractedInfo));
+        }
+        
+        return ChatResponse.builder()
+                .message(responseMessage)
+                .sessionId(sessionId)
+                .timestamp(LocalDateTime.now())
+                .extractedInfo(extractedInfo)
+                .requiresMoreInfo(determineIfMoreInfoNeeded(extractedInfo, request.getUserType()))
+                .nextAction(determineNextAction(extractedInfo, request.getUserType()))
+                .extractionPending(extractionPending)
+                .matches(findMatches(extractedInfo, request.getUserType()))
+                .build();
+    }
+    
+    private ChatResponse errorResponse(String sessionId) {
+        return ChatResponse.builder()
+                .message("I'm sorry, I'm having trouble processing your request right now. Please try again.")
+                .sessionId(sessionId)
+                .timestamp(LocalDateTime.now())
+                .extractedInfo(new HashMap<>())
+                .requiresMoreInfo(false)
+                .nextAction("retry")
+                .failed(true)
+                .build();
+    }
+    
+    /**
+     * Queue the extraction call and return provisional keyword-based info for the immediate
+     * response, or null if the extraction queue is full.
+     */
+    private Map<String, Object> submitAsyncExtraction(ChatRequest request, String sessionId, String aiResponse,
+                                                      boolean opening) {
+        Map<String, Object> provisional = basicInformationExtraction(request);
+        provisional.put("messageLength", request.getMessage().length());
+        provisional.put("timestamp", LocalDateTime.now());
+        
+        ExtractionResult pending = ExtractionExecutor.pending(sessionId, provisional,
+                determineIfMoreInfoNeeded(provisional, request.getUserType()),
+                determineNextAction(provisional, request.getUserType()));
+        boolean accepted = extractionExecutor.submit(sessionId, pending,
+                () -> finishExtraction(sessionId, request,
+                        extractInformation(request, aiResponse, LlmPriority.BACKGROUND, opening)));
+        return accepted ? provisional : null;
+    }
+    
+    /**
+     * Build the turn's final extraction result and, once nothing is missing, queue it to be
+     * stored as a job request or tradesperson profile.
+     */
+    private ExtractionResult finishExtraction(String sessionId, ChatRequest request, Map<String, Object> extractedInfo) {
+        ExtractionResult result = new ExtractionResult(sessionId, ExtractionResult.Status.COMPLETE, extractedInfo,
+                determineIfMoreInfoNeeded(extractedInfo, request.getUserType()),
+                determineNextAction(extractedInfo, request.getUserType()),
+                LocalDateTime.now());
+        if (!result.requiresMoreInfo()) {
+            String ownerId = request.getUserId() != null ? request.getUserId() : sessionId;
+            if (request.getUserType() == ChatRequest.UserType.CUSTOMER) {
+                extractionWriter.submit(ExtractionWriter.toJobRequest(ownerId, sessionId, extractedInfo));
+            } else {
+                Tradesperson profile = ExtractionWriter.toTradesperson(ownerId, extractedInfo);
+                tradespersonMatcher.upsert(profile);
+                extractionWriter.submit(profile);
+            }
+        }
+        return result;
+    }
+    
+    public Optional<ExtractionResult> getLatestExtraction(String sessionId) {
+        return extractionExecutor.latest(sessionId);
+    }
+    
+    /**
+     * Rank tradespeople against the session's latest extraction, once it is complete enough.
+     */
+    public Optional<List<TradespersonMatch>> getMatches(String sessionId) {
+        return extractionExecutor.latest(sessionId)
+                .filter(result -> "find_tradespeople".equals(result.nextAction()))
+                .map(result -> tradespersonMatcher.match(
+                        TradespersonMatcher.toServiceRequest(result.extractedInfo()), tradespersonMatcher.defaultLimit()));
+    }
+    
+    private List<TradespersonMatch> findMatches(Map<String, Object> extractedInfo, ChatRequest.UserType userType) {
+        if (!"find_tradespeople".equals(determineNextAction(extractedInfo, userType))) {
+            return null;
+        }
+        return tradespersonMatcher.match(TradespersonMatcher.toServiceRequest(extractedInfo),
+                tradespersonMatcher.defaultLimit());
+    }
+    
+    /**
+     * @param call what the call is for ("chat" or "extraction"), used to tag metrics
+     */
+    private String callChat(List<Message> promptMessages, String call, LlmPriority priority) throws Exception {
+        // Identical prompts already in flight (bursts of the same first message, retries) share one call
+        String reply = requestCoalescer.execute(call, priority, promptMessages,
+                () -> engineRouter.call(call, priority, promptMessages));
+        payloadLogger.log(call, promptMessages, reply);
+        return reply;
+    }
+    
+    /**
+     * Scheduling class for this turn's LLM calls: the keyword pass over the message, or the
+     * session's last extraction, marks urgent customers; tradespeople are browsing.
+     */
+    private LlmPriority classify(ChatRequest request, String sessionId) {
+        if (request.getUserType() == ChatRequest.UserType.TRADESPERSON) {
+            return LlmPriority.BROWSING;
+        }
+        String urgent = ServiceRequest.Urgency.HIGH.name();
+        if (urgent.equals(basicInformationExtraction(request).get("urgency"))) {
+            return LlmPriority.URGENT;
+        }
+        boolean urgentSoFar = extractionExecutor.latest(sessionId)
+                .map(ExtractionResult::extractedInfo)
+                .map(info -> urgent.equals(info.get("urgency"))
+                        || Boolean.TRUE.equals(info.get("isEmergency")))
+                .orElse(false);
+        return urgentSoFar ? LlmPriority.URGENT : LlmPriority.STANDARD;
+    }
+    
+    /**
+     * @param opening whether this is the session's first message. Only those are looked up in or
+     *                added to the extraction cache: a later message such as "yes" or "Leeds" is
+     *                extracted against the reply to earlier turns, so its result belongs to the
+     *                session and must not be served to another one.
+     */
+    private Map<String, Object> extractInformation(ChatRequest request, String aiResponse, LlmPriority priority,
+                                                   boolean opening) {
+        return chatMetrics.stage(ChatMetrics.STAGE_EXTRACTION, activeAiEngine,
+                () -> extractInformationUntimed(request, aiResponse, priority, opening));
+    }
+    
+    private Map<String, Object> extractInformationUntimed(ChatRequest request, String aiResponse,
+                                                          LlmPriority priority, boolean opening) {
         Map<String, Object> info = new HashMap<>();
+        String failedStep = "call";
         
         try {
-            String extractionPrompt = createExtractionPrompt(request, aiResponse);
-            String extractedJson;
-            
-            // Use the same AI engine for extraction
-            if ("grok".equals(activeAiEngine) && xaiChatService != null) {
-                extractedJson = xaiChatService.callXaiApi(extractionPrompt);
+            Optional<Map<String, Object>> cached = opening
+                    ? extractionCache.get(request.getUserType(), request.getMessage(), activeAiEngine)
+                    : Optional.empty();
+            if (cached.isPresent()) {
+                info = cached.get();
             } else {
-                List<Message> extractionMessages = List.of(new UserMessage(extractionPrompt));
-                org.springframework.ai.chat.ChatResponse extractionResponse = chatClient.call(new Prompt(extractionMessages));
-                extractedJson = extractionResponse.getResult().getOutput().getContent();
+                long start = System.nanoTime();
+                String extractionPrompt = createExtractionPrompt(request, aiResponse);
+                
+                // Use the same AI engine for extraction
+                String extractedJson = callChat(List.of(new UserMessage(extractionPrompt)), "extraction", priority);
+                
+                // Parse AI-extracted information
+                failedStep = "parse";
+                long parseStart = System.nanoTime();
+                info = parseExtractedInformation(extractedJson, request.getUserType());
+                chatMetrics.recordStage(ChatMetrics.STAGE_PARSE, activeAiEngine, System.nanoTime() - parseStart);
+                if (opening) {
+                    extractionCache.put(request.getUserType(), request.getMessage(), activeAiEngine,
+                            info, System.nanoTime() - start);
+                }
             }
             
-            // Parse AI-extracted information
-            info = parseExtractedInformation(extractedJson, request.getUserType());
-            
         } catch (Exception e) {
             log.error("Error extracting information with AI, falling back to basic extraction", e);
             // Fallback to basic extraction if AI fails
+            chatMetrics.recordFallback(e instanceof EngineBulkhead.BulkheadFullException ? "rejected" : failedStep);
             info = basicInformationExtraction(request);
         }
         
@@ -154,12 +451,12 @@ public class ChatService {
         if (request.getUserType() == ChatRequest.UserType.CUSTOMER) {
             return "Extract structured information from this customer conversation. Return ONLY a JSON object with these fields:\n" +
                    "{\n" +
-                   "  \"serviceType\": \"Plumbing|Electrical|Painting|Carpentry|Gardening|General|Other\",\n" +
-                   "  \"urgency\": \"Low|Medium|High\",\n" +
+                   "  \"serviceType\": \"PLUMBING|ELECTRICAL|PAINTING|CARPENTRY|GARDENING|OTHER or null\",\n" +
+                   "  \"urgency\": \"HIGH|MEDIUM|LOW|UNKNOWN\",\n" +
                    "  \"location\": \"extracted location or null\",\n" +
-                   "  \"budget\": \"extracted budget or null\",\n" +
-                   "  \"hasBudget\": true/false,\n" +
-                   "  \"specificNeeds\": \"brief description or null\"\n" +
+                   "  \"budgetRange\": \"extracted budget or null\",\n" +
+                   "  \"isEmergency\": true/false,\n" +
+                   "  \"jobDescription\": \"brief description or null\"\n" +
                    "}\n\n" +
                    "Customer message: " + request.getMessage() + "\n" +
                    "AI response: " + aiResponse + "\n\n" +
@@ -168,10 +465,10 @@ public class ChatService {
             return "Extract structured information from this tradesperson conversation. Return ONLY a JSON object with these fields:\n" +
                    "{\n" +
                    "  \"tradeSkills\": [\"list of mentioned skills\"],\n" +
-                   "  \"qualified\": true/false,\n" +
-                   "  \"availability\": \"Available|Busy|Unknown\",\n" +
+                   "  \"qualified\": true/false/null,\n" +
+                   "  \"availability\": \"AVAILABLE|BUSY|UNKNOWN\",\n" +
                    "  \"serviceAreas\": [\"list of mentioned areas\"],\n" +
-                   "  \"experienceLevel\": \"Beginner|Intermediate|Expert|Unknown\"\n" +
+                   "  \"experienceLevel\": \"BEGINNER|INTERMEDIATE|EXPERT|UNKNOWN\"\n" +
                    "}\n\n" +
                    "Tradesperson message: " + request.getMessage() + "\n" +
                    "AI response: " + aiResponse + "\n\n" +
@@ -179,61 +476,13 @@ public class ChatService {
         }
     }
     
-    private Map<String, Object> parseExtractedInformation(String extractedJson, ChatRequest.UserType userType) {
-        Map<String, Object> info = new HashMap<>();
-        
-        try {
-            // Simple JSON parsing - clean up the response
-            String cleanJson = extractedJson.trim();
-            if (cleanJson.startsWith("```json")) {
-                cleanJson = cleanJson.substring(7);
-            }
-            if (cleanJson.endsWith("```")) {
-                cleanJson = cleanJson.substring(0, cleanJson.length() - 3);
-            }
-            cleanJson = cleanJson.trim();
-            
-            // Parse basic fields from JSON string (simple approach)
-            if (userType == ChatRequest.UserType.CUSTOMER) {
-                info.put("serviceType", extractJsonField(cleanJson, "serviceType"));
-                info.put("urgency", extractJsonField(cleanJson, "urgency"));
-                info.put("location", extractJsonField(cleanJson, "location"));
-                info.put("budget", extractJsonField(cleanJson, "budget"));
-                info.put("hasBudget", extractJsonField(cleanJson, "hasBudget"));
-                info.put("specificNeeds", extractJsonField(cleanJson, "specificNeeds"));
-            } else {
-                info.put("tradeSkills", extractJsonField(cleanJson, "tradeSkills"));
-                info.put("qualified", extractJsonField(cleanJson, "qualified"));
-                info.put("availability", extractJsonField(cleanJson, "availability"));
-                info.put("serviceAreas", extractJsonField(cleanJson, "serviceAreas"));
-                info.put("experienceLevel", extractJsonField(cleanJson, "experienceLevel"));
-            }
-            
-        } catch (Exception e) {
-            log.error("Error parsing extracted JSON: " + extractedJson, e);
-            return basicInformationExtraction(null);
-        }
-        
-        return info;
-    }
-    
-    private String extractJsonField(String json, String fieldName) {
-        try {
-            // Simple regex-based field extraction
-            String pattern = "\"" + fieldName + "\"\\s*:\\s*\"?([^,}\"]+)\"?";
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(json);
-            if (m.find()) {
-                String value = m.group(1).trim();
-                if ("null".equals(value)) return null;
-                if ("true".equals(value)) return "true";
-                if ("false".equals(value)) return "false";
-                return value;
-            }
-        } catch (Exception e) {
-            log.warn("Error extracting field {}: {}", fieldName, e.getMessage());
+    private Map<String, Object> parseExtractedInformation(String extractedJson, ChatRequest.UserType userType)
+            throws IOException {
+        // Bind straight into the typed records; malformed output falls back to basic extraction
+        if (userType == ChatRequest.UserType.CUSTOMER) {
+            return ExtractionParser.toExtractedInfo(extractionParser.parseServiceRequest(extractedJson));
         }
-        return null;
+        return ExtractionParser.toExtractedInfo(extractionParser.parseTradespersonProfile(extractedJson));
     }
     
     private Map<String, Object> basicInformationExtraction(ChatRequest request) {
@@ -244,16 +493,16 @@ public class ChatService {
             
             // Basic service type detection
             if (lowerMessage.contains("plumber") || lowerMessage.contains("plumbing")) {
-                info.put("serviceType", "Plumbing");
+                info.put("serviceType", ServiceRequest.ServiceType.PLUMBING.name());
             } else if (lowerMessage.contains("electrician") || lowerMessage.contains("electrical")) {
-                info.put("serviceType", "Electrical");
+                info.put("serviceType", ServiceRequest.ServiceType.ELECTRICAL.name());
             } else if (lowerMessage.contains("painter") || lowerMessage.contains("painting")) {
-                info.put("serviceType", "Painting");
+                info.put("serviceType", ServiceRequest.ServiceType.PAINTING.name());
             }
             
             // Basic urgency detection
-            if (lowerMessage.contains("urgent") || lowerMessage.contains("emergency")) {
-                info.put("urgency", "High");
+            if (URGENT_KEYWORDS.stream().anyMatch(lowerMessage::contains)) {
+                info.put("urgency", ServiceRequest.Urgency.HIGH.name());
             }
         }
         
@@ -284,8 +533,16 @@ public class ChatService {
         return "session_" + System.currentTimeMillis();
     }
     
+    private static String newTurnId() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+    
     public void clearConversationHistory(String sessionId) {
-        conversationHistory.remove(sessionId);
+        sessionLocks.withSessionLock(sessionId, () -> {
+            conversationStore.remove(sessionId);
+            extractionExecutor.clear(sessionId);
+            return null;
+        });
         log.info("Cleared conversation history for session: {}", sessionId);
     }
 }
\ No newline at end of file
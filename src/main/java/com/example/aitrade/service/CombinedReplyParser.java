@@ -0,0 +1,119 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ChatRequest;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Parses single-call completions that carry both the conversational reply and the
+ * extracted fields. The "extraction" object is read by {@link ExtractionParser}, so it gets the
+ * same field aliases and lenient values as the separate extraction call and maps onto the same keys.
+ */
+@Component
+public class CombinedReplyParser {
+
+    private static final Logger log = LoggerFactory.getLogger(CombinedReplyParser.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExtractionParser extractionParser;
+
+    public CombinedReplyParser(ExtractionParser extractionParser) {
+        this.extractionParser = extractionParser;
+    }
+
+    /**
+     * Instructions appended to the system prompt when running in combined mode.
+     */
+    public String instructionsFor(ChatRequest.UserType userType) {
+        if (userType == ChatRequest.UserType.CUSTOMER) {
+            return "\n\nRespond ONLY with a JSON object of this shape:\n" +
+                   "{\n" +
+                   "  \"reply\": \"your conversational reply to the customer\",\n" +
+                   "  \"extraction\": {\n" +
+                   "    \"serviceType\": \"PLUMBING|ELECTRICAL|PAINTING|CARPENTRY|GARDENING|OTHER or null\",\n" +
+                   "    \"urgency\": \"HIGH|MEDIUM|LOW|UNKNOWN\",\n" +
+                   "    \"location\": \"extracted location or null\",\n" +
+                   "    \"budgetRange\": \"extracted budget or null\",\n" +
+                   "    \"isEmergency\": true/false,\n" +
+                   "    \"jobDescription\": \"brief description or null\"\n" +
+                   "  }\n" +
+                   "}";
+        }
+        return "\n\nRespond ONLY with a JSON object of this shape:\n" +
+               "{\n" +
+               "  \"reply\": \"your conversational reply to the tradesperson\",\n" +
+               "  \"extraction\": {\n" +
+               "    \"tradeSkills\": [\"list of mentioned skills\"],\n" +
+               "    \"qualified\": true/false/null,\n" +
+               "    \"availability\": \"AVAILABLE|BUSY|UNKNOWN\",\n" +
+               "    \"serviceAreas\": [\"list of mentioned areas\"],\n" +
+               "    \"experienceLevel\": \"BEGINNER|INTERMEDIATE|EXPERT|UNKNOWN\"\n" +
+               "  }\n" +
+               "}";
+    }
+
+    /**
+     * Parse a combined completion, tolerating code fences and surrounding prose.
+     * Returns empty if no usable reply could be recovered.
+     */
+    public Optional<CombinedReply> parse(String completion, ChatRequest.UserType userType) {
+        if (completion == null) {
+            return Optional.empty();
+        }
+        int start = completion.indexOf('{');
+        int end = completion.lastIndexOf('}');
+        if (start < 0 || end <= start) {
+            return Optional.empty();
+        }
+
+        try {
+            JsonNode root = objectMapper.readTree(completion.substring(start, end + 1));
+            String reply = root.path("reply").textValue();
+            if (reply == null || reply.isBlank()) {
+                return Optional.empty();
+            }
+
+            JsonNode extraction = root.path("extraction");
+            Map<String, Object> info = new HashMap<>();
+            if (extraction.isObject()) {
+                try (JsonParser parser = objectMapper.treeAsTokens(extraction)) {
+                    parser.nextToken();
+                    if (userType == ChatRequest.UserType.CUSTOMER) {
+                        info = ExtractionParser.toExtractedInfo(extractionParser.parseServiceRequest(parser));
+                    } else {
+                        info = ExtractionParser.toExtractedInfo(extractionParser.parseTradespersonProfile(parser));
+                    }
+                }
+            }
+            return Optional.of(new CombinedReply(reply, info));
+
+        } catch (JsonProcessingException e) {
+            log.warn("Combined completion was not valid JSON: {}", e.getOriginalMessage());
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Combined completion extraction could not be read: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Whether a completion that failed to parse was at least attempting structured output,
+     * in which case it is not fit to show to the user as-is.
+     */
+    public boolean looksStructured(String completion) {
+        return completion != null && completion.indexOf('{') >= 0;
+    }
+
+    public record CombinedReply(String reply, Map<String, Object> extractedInfo) {
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.session.ConversationStore;
+import com.example.aitrade.session.ConversationSummary;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembles prompts that fit a per-engine token budget.
+ *
+ * The system message and the current user message are always sent. As many of the most
+ * recent history messages as fit are sent verbatim; anything older is folded into a rolling
+ * summary kept in the {@link ConversationStore}, so each turn only folds the messages that
+ * newly fell out of the window.
+ *
+ * The "summary" is deliberately not written by a model: it is the dropped messages as
+ * role-prefixed transcript lines, each cut to {@code summary-line-chars}, with the oldest
+ * lines dropped once it exceeds {@code summary-max-tokens}. That keeps the prompt build free
+ * of an extra LLM call on the turn's critical path, at the cost of losing the oldest detail.
+ */
+@Component
+public class ContextWindowManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ContextWindowManager.class);
+
+    private static final String SUMMARY_HEADER = "Summary of the earlier conversation:\n";
+
+    // Per-message framing added by chat templates (role markers, separators)
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final ConversationStore conversationStore;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Integer> budgets;
+    private final int defaultBudget;
+    private final int summaryMaxTokens;
+    private final int summaryLineChars;
+
+    public ContextWindowManager(ConversationStore conversationStore,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.context-window.budget.ollama:3000}") int ollamaBudget,
+                                @Value("${app.context-window.budget.groq:6000}") int groqBudget,
+                                @Value("${app.context-window.budget.grok:12000}") int grokBudget,
+                                @Value("${app.context-window.summary-max-tokens:400}") int summaryMaxTokens,
+                                @Value("${app.context-window.summary-line-chars:240}") int summaryLineChars) {
+        this.conversationStore = conversationStore;
+        this.meterRegistry = meterRegistry;
+        this.budgets = Map.of("ollama", ollamaBudget, "groq", groqBudget, "grok", grokBudget);
+        this.defaultBudget = ollamaBudget;
+        this.summaryMaxTokens = summaryMaxTokens;
+        this.summaryLineChars = summaryLineChars;
+    }
+
+    /**
+     * Budget that fits every engine in {@code engines}. The router may fail a turn over to any
+     * of them after its prompt is built, so the window has to fit the smallest.
+     */
+    public int budgetFor(Collection<String> engines) {
+        return engines.stream()
+                .mapToInt(engine -> budgets.getOrDefault(engine, defaultBudget))
+                .min()
+                .orElse(defaultBudget);
+    }
+
+    /**
+     * Build the prompt messages for one turn.
+     *
+     * @param engine  engine the turn is accounted to in metrics and logs
+     * @param budget  prompt token budget, see {@link #budgetFor}
+     * @param history prior messages of the session, oldest first, excluding {@code userMessage}
+     */
+    public ContextWindow buildWindow(String sessionId, String engine, int budget, String systemPrompt,
+                                     List<Message> history, Message userMessage) {
+        int fixedTokens = estimateTokens(systemPrompt) + estimateTokens(userMessage.getContent());
+
+        int[] historyTokens = new int[history.size()];
+        int fullHistoryTokens = 0;
+        for (int i = 0; i < history.size(); i++) {
+            historyTokens[i] = estimateTokens(history.get(i).getContent());
+            fullHistoryTokens += historyTokens[i];
+        }
+
+        ConversationSummary summary = conversationStore.getSummary(sessionId);
+        int covered = Math.min(summary.coveredMessages(), history.size());
+
+        int uncoveredTokens = 0;
+        for (int i = covered; i < history.size(); i++) {
+            uncoveredTokens += historyTokens[i];
+        }
+
+        int start = covered;
+        if (fixedTokens + estimateTokens(summary.text()) + uncoveredTokens > budget) {
+            // Keep the newest messages that fit next to a full-size summary, fold the rest
+            int available = budget - fixedTokens - summaryMaxTokens;
+            int used = 0;
+            start = history.size();
+            while (start > covered && used + historyTokens[start - 1] <= available) {
+                start--;
+                used += historyTokens[start];
+            }
+            summary = fold(summary, history.subList(covered, start), start);
+            conversationStore.putSummary(sessionId, summary);
+        }
+
+        List<Message> messages = new ArrayList<>(history.size() - start + 3);
+        messages.add(new SystemMessage(systemPrompt));
+        if (!summary.isEmpty()) {
+            messages.add(new SystemMessage(SUMMARY_HEADER + summary.text()));
+        }
+        int promptTokens = fixedTokens + (summary.isEmpty() ? 0 : estimateTokens(SUMMARY_HEADER + summary.text()));
+        for (int i = start; i < history.size(); i++) {
+            messages.add(history.get(i));
+            promptTokens += historyTokens[i];
+        }
+        messages.add(userMessage);
+
+        int untrimmedTokens = fixedTokens + fullHistoryTokens;
+        recordTokens(engine, promptTokens, untrimmedTokens);
+        log.debug("Prompt for session {} on {}: {} tokens ({} verbatim messages, {} summarized), untrimmed {} tokens",
+                sessionId, engine, promptTokens, history.size() - start, start, untrimmedTokens);
+
+        return new ContextWindow(messages, promptTokens, untrimmedTokens);
+    }
+
+    private ConversationSummary fold(ConversationSummary summary, List<Message> dropped, int coveredMessages) {
+        if (dropped.isEmpty()) {
+            return summary;
+        }
+        StringBuilder text = new StringBuilder(summary.text());
+        for (Message message : dropped) {
+            if (!text.isEmpty()) {
+                text.append('\n');
+            }
+            String content = message.getContent() != null ? message.getContent().strip() : "";
+            text.append(message.getMessageType().getValue()).append(": ");
+            if (content.length() > summaryLineChars) {
+                text.append(content, 0, summaryLineChars).append("...");
+            } else {
+                text.append(content);
+            }
+        }
+
+        // Drop the oldest lines until the summary fits its own budget
+        int maxChars = summaryMaxTokens * 4;
+        int cut = 0;
+        while (text.length() - cut > maxChars) {
+            int newline = text.indexOf("\n", cut);
+            cut = newline < 0 ? text.length() - maxChars : newline + 1;
+        }
+        return new ConversationSummary(coveredMessages, text.substring(cut));
+    }
+
+    private void recordTokens(String engine, int promptTokens, int untrimmedTokens) {
+        DistributionSummary.builder("chat.prompt.tokens")
+                .description("Estimated prompt tokens sent per turn")
+                .tag("engine", engine)
+                .register(meterRegistry)
+                .record(promptTokens);
+        DistributionSummary.builder("chat.prompt.tokens.saved")
+                .description("Estimated prompt tokens trimmed from the full history per turn")
+                .tag("engine", engine)
+                .register(meterRegistry)
+                .record(Math.max(0, untrimmedTokens - promptTokens));
+    }
+
+    /**
+     * Cheap token estimate (~4 characters per token for English text) plus framing overhead.
+     */
+    static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return MESSAGE_OVERHEAD_TOKENS;
+        }
+        return (text.length() + 3) / 4 + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * Messages to send for a turn and their estimated size.
+     *
+     * @param promptTokens    estimated tokens actually sent
+     * @param untrimmedTokens estimated tokens had the whole history been sent
+     */
+    public record ContextWindow(List<Message> messages, int promptTokens, int untrimmedTokens) {
+    }
+}
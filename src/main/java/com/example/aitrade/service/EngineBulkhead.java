@@ -0,0 +1,245 @@
+package com.example.aitrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps concurrent outbound calls per AI engine so one slow upstream can't tie up every
+ * request thread. Callers wait up to {@code app.bulkhead.max-wait} for a permit.
+ *
+ * Waiting calls are queued per {@link LlmPriority} and a freed permit goes to the class with
+ * the lowest virtual time, which advances by {@code 1 / weight} per call admitted
+ * (start-time fair queueing). Under saturation each class gets permits in proportion to its
+ * {@code app.bulkhead.weights} entry, so urgent turns overtake browsing and background work
+ * without starving it.
+ */
+@Component
+public class EngineBulkhead {
+
+    private static final Logger log = LoggerFactory.getLogger(EngineBulkhead.class);
+
+    private final Map<String, Integer> limits;
+    private final int defaultLimit;
+    private final long maxWaitNanos;
+    private final Map<LlmPriority, Double> weights;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    public EngineBulkhead(@Value("${app.bulkhead.max-concurrent.ollama:4}") int ollamaLimit,
+                          @Value("${app.bulkhead.max-concurrent.groq:32}") int groqLimit,
+                          @Value("${app.bulkhead.max-concurrent.grok:32}") int grokLimit,
+                          @Value("${app.bulkhead.max-wait:30s}") Duration maxWait,
+                          @Value("${app.bulkhead.weights.urgent:8}") double urgentWeight,
+                          @Value("${app.bulkhead.weights.standard:4}") double standardWeight,
+                          @Value("${app.bulkhead.weights.browsing:2}") double browsingWeight,
+                          @Value("${app.bulkhead.weights.background:1}") double backgroundWeight,
+                          MeterRegistry meterRegistry) {
+        this.limits = Map.of("ollama", ollamaLimit, "groq", groqLimit, "grok", grokLimit);
+        this.defaultLimit = ollamaLimit;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.weights = new EnumMap<>(Map.of(
+                LlmPriority.URGENT, urgentWeight,
+                LlmPriority.STANDARD, standardWeight,
+                LlmPriority.BROWSING, browsingWeight,
+                LlmPriority.BACKGROUND, backgroundWeight));
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run an outbound call once a permit for the engine is available.
+     *
+     * @throws BulkheadFullException if no permit frees up within the configured wait
+     */
+    public <T> T execute(String engine, LlmPriority priority, EngineCall<T> call) throws Exception {
+        Compartment compartment = compartments.computeIfAbsent(engine, this::createCompartment);
+
+        long start = System.nanoTime();
+        compartment.waiting.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = compartment.acquire(priority, maxWaitNanos);
+        } finally {
+            compartment.waiting.decrementAndGet();
+            compartment.queueWait.get(priority).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            compartment.rejected.get(priority).increment();
+            log.warn("Bulkhead for engine {} full ({} in flight), rejecting {} call", engine, compartment.limit, priority.tag());
+            throw new BulkheadFullException(engine);
+        }
+
+        compartment.inFlight.incrementAndGet();
+        try {
+            return call.call();
+        } finally {
+            compartment.inFlight.decrementAndGet();
+            compartment.release();
+        }
+    }
+
+    private Compartment createCompartment(String engine) {
+        int limit = limits.getOrDefault(engine, defaultLimit);
+        log.info("Bulkhead for engine {}: {} concurrent calls, weights {}", engine, limit, weights);
+        return new Compartment(engine, limit, weights, meterRegistry);
+    }
+
+    @FunctionalInterface
+    public interface EngineCall<T> {
+        T call() throws Exception;
+    }
+
+    public static class BulkheadFullException extends RuntimeException {
+        public BulkheadFullException(String engine) {
+            super("Too many concurrent calls to AI engine: " + engine);
+        }
+    }
+
+    private static final class Compartment {
+        private final int limit;
+        private final Map<LlmPriority, Double> weights;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Map<LlmPriority, Timer> queueWait = new EnumMap<>(LlmPriority.class);
+        private final Map<LlmPriority, Counter> rejected = new EnumMap<>(LlmPriority.class);
+
+        // Guarded by lock
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<LlmPriority, ArrayDeque<Waiter>> queues = new EnumMap<>(LlmPriority.class);
+        private final Map<LlmPriority, Double> virtualTimes = new EnumMap<>(LlmPriority.class);
+        private double virtualClock;
+        private int available;
+
+        private Compartment(String engine, int limit, Map<LlmPriority, Double> weights, MeterRegistry meterRegistry) {
+            this.limit = limit;
+            this.weights = weights;
+            this.available = limit;
+            for (LlmPriority priority : LlmPriority.values()) {
+                queues.put(priority, new ArrayDeque<>());
+                virtualTimes.put(priority, 0.0);
+                queueWait.put(priority, Timer.builder("chat.engine.queue.wait")
+                        .description("Time spent waiting for an engine bulkhead permit")
+                        .tag("engine", engine)
+                        .tag("priority", priority.tag())
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry));
+                rejected.put(priority, Counter.builder("chat.engine.rejected")
+                        .tag("engine", engine)
+                        .tag("priority", priority.tag())
+                        .register(meterRegistry));
+                ArrayDeque<Waiter> queue = queues.get(priority);
+                Gauge.builder("chat.engine.queue.depth", this, compartment -> compartment.depth(queue))
+                        .tag("engine", engine)
+                        .tag("priority", priority.tag())
+                        .register(meterRegistry);
+            }
+            Gauge.builder("chat.engine.in.flight", inFlight, AtomicInteger::get)
+                    .tag("engine", engine)
+                    .register(meterRegistry);
+            Gauge.builder("chat.engine.waiting", waiting, AtomicInteger::get)
+                    .tag("engine", engine)
+                    .register(meterRegistry);
+        }
+
+        boolean acquire(LlmPriority priority, long maxWaitNanos) throws InterruptedException {
+            lock.lock();
+            try {
+                if (available > 0) {
+                    // Permits are only free while nobody is queued
+                    available--;
+                    return true;
+                }
+                ArrayDeque<Waiter> queue = queues.get(priority);
+                if (queue.isEmpty()) {
+                    // A class returning from idle starts at the current clock rather than cashing in idle time
+                    virtualTimes.put(priority, Math.max(virtualTimes.get(priority), virtualClock));
+                }
+                Waiter waiter = new Waiter(lock.newCondition());
+                queue.addLast(waiter);
+
+                long remaining = maxWaitNanos;
+                try {
+                    while (!waiter.granted) {
+                        if (remaining <= 0) {
+                            queue.remove(waiter);
+                            return false;
+                        }
+                        remaining = waiter.condition.awaitNanos(remaining);
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        releaseLocked();
+                    } else {
+                        queue.remove(waiter);
+                    }
+                    throw e;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                releaseLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void releaseLocked() {
+            LlmPriority next = null;
+            for (LlmPriority priority : LlmPriority.values()) {
+                if (!queues.get(priority).isEmpty()
+                        && (next == null || virtualTimes.get(priority) < virtualTimes.get(next))) {
+                    next = priority;
+                }
+            }
+            if (next == null) {
+                available++;
+                return;
+            }
+            double start = virtualTimes.get(next);
+            virtualClock = start;
+            virtualTimes.put(next, start + 1.0 / weights.get(next));
+            Waiter waiter = queues.get(next).pollFirst();
+            waiter.granted = true;
+            waiter.condition.signal();
+        }
+
+        private int depth(ArrayDeque<Waiter> queue) {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.example.aitrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Routes each LLM call across every configured {@link ChatEngine}.
+ *
+ * Engines are ranked per call by {@code p95 latency * cost weight * (1 + error penalty * error rate)}
+ * over a rolling window of recent calls; engines without recent samples are scored at
+ * {@code app.router.default-latency}, and ties go to {@code app.active-ai-engine}. A failed
+ * call moves on to the next engine in the ranking, as long as no reply tokens have been
+ * streamed yet. A stream whose token consumer fails (the client went away) is abandoned with
+ * a {@link TokenConsumerException}, without failover and without counting against the engine.
+ *
+ * Each engine has a circuit breaker: it opens after {@code failure-threshold} consecutive
+ * failures, or once the window's error rate reaches {@code error-rate-threshold}, and lets a
+ * single trial call through after {@code open-duration}. Calls rejected by the engine's
+ * bulkhead trigger failover but don't count against its breaker.
+ *
+ * Non-streaming calls may be hedged as configured by {@link HedgingPolicy}; the losing request
+ * is cancelled and recorded with outcome "cancelled" rather than counted as a failure.
+ */
+@Component
+public class EngineRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(EngineRouter.class);
+
+    enum BreakerState { CLOSED, HALF_OPEN, OPEN }
+
+    private final List<EngineState> engines;
+    private final String preferredEngine;
+    private final EngineBulkhead engineBulkhead;
+    private final ChatMetrics chatMetrics;
+    private final HedgingPolicy hedgingPolicy;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Attempt> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final long defaultLatencyNanos;
+    private final double errorPenalty;
+    private final int windowSize;
+    private final long windowNanos;
+    private final int failureThreshold;
+    private final double errorRateThreshold;
+    private final int minCalls;
+    private final long openNanos;
+
+    public EngineRouter(List<ChatEngine> chatEngines,
+                        EngineBulkhead engineBulkhead,
+                        ChatMetrics chatMetrics,
+                        HedgingPolicy hedgingPolicy,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.active-ai-engine:ollama}") String preferredEngine,
+                        @Value("${app.router.window-size:100}") int windowSize,
+                        @Value("${app.router.window-duration:5m}") Duration windowDuration,
+                        @Value("${app.router.default-latency:2s}") Duration defaultLatency,
+                        @Value("${app.router.error-penalty:4}") double errorPenalty,
+                        @Value("${app.router.cost-weight.ollama:1}") double ollamaCost,
+                        @Value("${app.router.cost-weight.groq:1}") double groqCost,
+                        @Value("${app.router.cost-weight.grok:1}") double grokCost,
+                        @Value("${app.router.breaker.failure-threshold:5}") int failureThreshold,
+                        @Value("${app.router.breaker.error-rate-threshold:0.5}") double errorRateThreshold,
+                        @Value("${app.router.breaker.min-calls:10}") int minCalls,
+                        @Value("${app.router.breaker.open-duration:30s}") Duration openDuration) {
+        if (chatEngines.isEmpty()) {
+            throw new IllegalStateException("No AI engine configured; enable at least one under app.engines");
+        }
+        this.preferredEngine = preferredEngine;
+        this.engineBulkhead = engineBulkhead;
+        this.chatMetrics = chatMetrics;
+        this.hedgingPolicy = hedgingPolicy;
+        this.meterRegistry = meterRegistry;
+        this.windowSize = windowSize;
+        this.windowNanos = windowDuration.toNanos();
+        this.defaultLatencyNanos = defaultLatency.toNanos();
+        this.errorPenalty = errorPenalty;
+        this.failureThreshold = failureThreshold;
+        this.errorRateThreshold = errorRateThreshold;
+        this.minCalls = minCalls;
+        this.openNanos = openDuration.toNanos();
+
+        Map<String, Double> costWeights = Map.of("ollama", ollamaCost, "groq", groqCost, "grok", grokCost);
+        List<EngineState> states = new ArrayList<>();
+        for (ChatEngine engine : chatEngines) {
+            states.add(new EngineState(engine, costWeights.getOrDefault(engine.name(), 1.0)));
+        }
+        // Stable order for ties: preferred engine first, then as declared
+        states.sort(Comparator.comparing(state -> !state.name.equals(preferredEngine)));
+        this.engines = List.copyOf(states);
+
+        log.info("Engine router: engines={}, preferred={}, costWeights={}",
+                engines.stream().map(state -> state.name).toList(), preferredEngine, costWeights);
+        if (engines.stream().noneMatch(state -> state.name.equals(preferredEngine))) {
+            // Typically an AOT image, whose engine beans are fixed when it is built, run with another engine
+            log.warn("Active AI engine {} has no client; routing to {} instead", preferredEngine, engines.get(0).name);
+        }
+    }
+
+    /**
+     * Engine whose settings (context budget, cache keys) apply before a call is routed.
+     */
+    public String preferredEngine() {
+        return preferredEngine;
+    }
+
+    /**
+     * Every engine a call may be routed to, preferred first.
+     */
+    public List<String> engineNames() {
+        return engines.stream().map(state -> state.name).toList();
+    }
+
+    /**
+     * @param call what the call is for ("chat" or "extraction"), used to tag metrics
+     * @param priority scheduling class while waiting for an engine's bulkhead
+     */
+    public String call(String call, LlmPriority priority, List<Message> messages) throws Exception {
+        return route(call, priority, engine -> engine.call(messages), () -> true, hedgingPolicy.isEnabled());
+    }
+
+    /**
+     * Stream a reply. Failover only happens before the first token reaches {@code onToken}.
+     */
+    public String stream(LlmPriority priority, List<Message> messages, Consumer<String> onToken) throws Exception {
+        AtomicBoolean emitted = new AtomicBoolean();
+        Consumer<String> tracking = token -> {
+            emitted.set(true);
+            try {
+                onToken.accept(token);
+            } catch (RuntimeException e) {
+                throw new TokenConsumerException(e);
+            }
+        };
+        // Tokens already on the wire can't be taken back, so streams are never hedged
+        return route("stream", priority, engine -> engine.stream(messages, tracking), () -> !emitted.get(), false);
+    }
+
+    private String route(String call, LlmPriority priority, EngineFunction function, BooleanSupplier canFailOver,
+                         boolean hedged)
+            throws Exception {
+        List<EngineState> ranked = rank();
+        Exception lastFailure = null;
+        EngineState previous = null;
+
+        for (EngineState state : ranked) {
+            if (!state.tryAcquire()) {
+                state.shortCircuited.increment();
+                continue;
+            }
+            if (previous != null) {
+                log.warn("Failing over {} call from {} to {}", call, previous.name, state.name);
+                Counter.builder("chat.router.failovers")
+                        .tag("from", previous.name)
+                        .tag("to", state.name)
+                        .register(meterRegistry)
+                        .increment();
+            }
+            try {
+                hedgingPolicy.onPrimaryCall(state.name);
+                String reply = hedged
+                        ? callHedged(state, ranked, call, priority, function)
+                        : engineBulkhead.execute(state.name, priority, () -> invoke(state, call, function, null));
+                Counter.builder("chat.router.routed")
+                        .description("Calls served per engine")
+                        .tag("engine", state.name)
+                        .tag("call", call)
+                        .tag("failover", String.valueOf(previous != null))
+                        .register(meterRegistry)
+                        .increment();
+                return reply;
+            } catch (InterruptedException e) {
+                // Possibly while queued for the bulkhead, before a trial call could settle the breaker
+                state.releaseTrial();
+                Thread.currentThread().interrupt();
+                throw e;
+            } catch (TokenConsumerException e) {
+                // The caller is gone; another engine would have no one to stream to either
+                throw e;
+            } catch (EngineBulkhead.BulkheadFullException e) {
+                // Local saturation says nothing about the upstream's health
+                state.releaseTrial();
+                lastFailure = e;
+            } catch (Exception e) {
+                log.warn("{} call to {} failed: {}", call, state.name, e.toString());
+                lastFailure = e;
+            }
+            if (!canFailOver.getAsBoolean() || hedgeExecutor.isShutdown()) {
+                break;
+            }
+            previous = state;
+        }
+
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        throw new EngineUnavailableException(ranked.stream().map(state -> state.name).toList());
+    }
+
+    /**
+     * Send the call to {@code primary}; if it is still running after the hedge delay, send it
+     * again to another engine (or the same one if none is available) and return the first
+     * successful reply.
+     */
+    private String callHedged(EngineState primary, List<EngineState> ranked, String call, LlmPriority priority,
+                              EngineFunction function) throws Exception {
+        long delay = Math.max(hedgingPolicy.minDelayNanos(),
+                primary.percentileNanos(hedgingPolicy.percentile(), System.nanoTime()));
+        ExecutorCompletionService<String> completion = new ExecutorCompletionService<>(hedgeExecutor);
+        Attempt first = submit(completion, primary, call, priority, function);
+        Attempt second = null;
+        try {
+            Future<String> done = completion.poll(delay, TimeUnit.NANOSECONDS);
+            if (done != null) {
+                return done.get();
+            }
+            EngineState target = hedgeTarget(primary, ranked);
+            if (target == null) {
+                return first.future.get();
+            }
+            log.info("{} call to {} still running after {} ms, hedging to {}",
+                    call, primary.name, TimeUnit.NANOSECONDS.toMillis(delay), target.name);
+            hedgingPolicy.recordFired(primary.name, target.name);
+            second = submit(completion, target, call, priority, function);
+
+            ExecutionException failure = null;
+            for (int i = 0; i < 2; i++) {
+                Future<String> next = completion.take();
+                try {
+                    String reply = next.get();
+                    if (next == second.future) {
+                        hedgingPolicy.recordWon(primary.name, target.name);
+                    }
+                    return reply;
+                } catch (ExecutionException e) {
+                    failure = e;
+                }
+            }
+            throw failure;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            first.cancel();
+            if (second != null) {
+                second.cancel();
+            }
+        }
+    }
+
+    private Attempt submit(ExecutorCompletionService<String> completion, EngineState state, String call,
+                           LlmPriority priority, EngineFunction function) {
+        Attempt attempt = new Attempt();
+        Map<String, String> logContext = MDC.getCopyOfContextMap();
+        inFlight.add(attempt);
+        try {
+            attempt.future = completion.submit(() -> {
+                if (logContext != null) {
+                    MDC.setContextMap(logContext);
+                }
+                try {
+                    return engineBulkhead.execute(state.name, priority,
+                            () -> invoke(state, call, function, attempt.cancelled));
+                } catch (EngineBulkhead.BulkheadFullException | InterruptedException e) {
+                    // Rejected or cancelled before the engine was called
+                    state.releaseTrial();
+                    throw e;
+                } finally {
+                    inFlight.remove(attempt);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rejected because the router is shutting down
+            inFlight.remove(attempt);
+            state.releaseTrial();
+            throw e;
+        }
+        return attempt;
+    }
+
+    /**
+     * Pick an engine for the hedge, charging the primary's budget. Returns null if the budget
+     * is spent or no engine will take the call.
+     */
+    private EngineState hedgeTarget(EngineState primary, List<EngineState> ranked) {
+        EngineState target = null;
+        for (EngineState state : ranked) {
+            if (state != primary && state.tryAcquire()) {
+                target = state;
+                break;
+            }
+        }
+        if (target == null && primary.tryAcquire()) {
+            target = primary;
+        }
+        if (target != null && !hedgingPolicy.tryAcquire(primary.name)) {
+            target.releaseTrial();
+            return null;
+        }
+        return target;
+    }
+
+    /**
+     * @param cancelled set when this is the losing side of a hedged call, or null if unhedged
+     */
+    private String invoke(EngineState state, String call, EngineFunction function, AtomicBoolean cancelled)
+            throws Exception {
+        long start = System.nanoTime();
+        boolean success = false;
+        boolean aborted = false;
+        try {
+            String reply = function.apply(state.engine);
+            success = true;
+            return reply;
+        } catch (TokenConsumerException e) {
+            aborted = true;
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (aborted || (cancelled != null && cancelled.get())) {
+                // Abandoned by us or our caller, not failed by the engine
+                state.releaseTrial();
+                chatMetrics.recordLlmCall(state.name, call, aborted ? "aborted" : "cancelled", elapsed);
+            } else {
+                state.record(elapsed, success);
+                chatMetrics.recordLlmCall(state.name, call, success ? "success" : "error", elapsed);
+            }
+        }
+    }
+
+    private List<EngineState> rank() {
+        if (engines.size() == 1) {
+            return engines;
+        }
+        long now = System.nanoTime();
+        double[] scores = new double[engines.size()];
+        Integer[] order = new Integer[engines.size()];
+        for (int i = 0; i < engines.size(); i++) {
+            scores[i] = engines.get(i).score(now);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> scores[i]));
+        List<EngineState> ranked = new ArrayList<>(engines.size());
+        for (Integer i : order) {
+            ranked.add(engines.get(i));
+        }
+        return ranked;
+    }
+
+    /**
+     * Cancel hedged attempts still in flight, so their engine calls are interrupted and recorded
+     * as cancelled rather than failed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        hedgeExecutor.shutdown();
+        if (!inFlight.isEmpty()) {
+            log.warn("Cancelling {} hedged calls still in flight", inFlight.size());
+            inFlight.forEach(Attempt::cancel);
+        }
+        // Also interrupts an attempt submitted too late to be in the set when it was cancelled
+        hedgeExecutor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface EngineFunction {
+        String apply(ChatEngine engine) throws Exception;
+    }
+
+    private static final class Attempt {
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private Future<String> future;
+
+        void cancel() {
+            Future<String> submitted = future;
+            if (submitted == null || !submitted.isDone()) {
+                cancelled.set(true);
+                if (submitted != null) {
+                    submitted.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * The consumer of a stream's tokens failed, typically because the client disconnected.
+     */
+    public static class TokenConsumerException extends RuntimeException {
+        public TokenConsumerException(RuntimeException cause) {
+            super("Token consumer failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    public static class EngineUnavailableException extends RuntimeException {
+        public EngineUnavailableException(List<String> engines) {
+            super("No AI engine available, all circuit breakers open: " + engines);
+        }
+    }
+
+    /**
+     * Rolling latency/error window and circuit breaker for one engine.
+     */
+    private final class EngineState {
+        private final ChatEngine engine;
+        private final String name;
+        private final double costWeight;
+        private final Counter shortCircuited;
+
+        // Ring buffer of the most recent calls
+        private final long[] latencies = new long[windowSize];
+        private final long[] finishedAt = new long[windowSize];
+        private final boolean[] failed = new boolean[windowSize];
+        private int next;
+        private int count;
+
+        private BreakerState breaker = BreakerState.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        private EngineState(ChatEngine engine, double costWeight) {
+            this.engine = engine;
+            this.name = engine.name();
+            this.costWeight = costWeight;
+            this.shortCircuited = Counter.builder("chat.router.short.circuited")
+                    .description("Calls that skipped an engine because its circuit breaker was open")
+                    .tag("engine", name)
+                    .register(meterRegistry);
+            Gauge.builder("chat.router.breaker.state", this, state -> state.breakerState().ordinal())
+                    .description("0 = closed, 1 = half-open, 2 = open")
+                    .tag("engine", name)
+                    .register(meterRegistry);
+            Gauge.builder("chat.router.latency.p95", this, state -> state.percentileNanos(0.95, System.nanoTime()) / 1e9)
+                    .baseUnit("seconds")
+                    .tag("engine", name)
+                    .register(meterRegistry);
+            Gauge.builder("chat.router.error.rate", this, state -> state.errorRate(System.nanoTime()))
+                    .tag("engine", name)
+                    .register(meterRegistry);
+            Gauge.builder("chat.router.score", this, state -> state.score(System.nanoTime()))
+                    .description("Routing score; the lowest-scoring engine is tried first")
+                    .tag("engine", name)
+                    .register(meterRegistry);
+        }
+
+        synchronized double score(long now) {
+            double latency = percentileNanos(0.95, now) / 1e6;
+            return latency * costWeight * (1 + errorPenalty * errorRate(now));
+        }
+
+        synchronized long percentileNanos(double quantile, long now) {
+            long[] recent = new long[count];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (now - finishedAt[i] <= windowNanos) {
+                    recent[n++] = latencies[i];
+                }
+            }
+            if (n == 0) {
+                return defaultLatencyNanos;
+            }
+            Arrays.sort(recent, 0, n);
+            return recent[Math.max(0, Math.min(n - 1, (int) Math.ceil(n * quantile) - 1))];
+        }
+
+        synchronized double errorRate(long now) {
+            int n = 0;
+            int failures = 0;
+            for (int i = 0; i < count; i++) {
+                if (now - finishedAt[i] <= windowNanos) {
+                    n++;
+                    if (failed[i]) {
+                        failures++;
+                    }
+                }
+            }
+            return n == 0 ? 0 : failures / (double) n;
+        }
+
+        synchronized BreakerState breakerState() {
+            return breaker;
+        }
+
+        synchronized boolean tryAcquire() {
+            switch (breaker) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - openedAt < openNanos) {
+                        return false;
+                    }
+                    transition(BreakerState.HALF_OPEN);
+                    trialInFlight = true;
+                    return true;
+                default:
+                    if (trialInFlight) {
+                        return false;
+                    }
+                    trialInFlight = true;
+                    return true;
+            }
+        }
+
+        synchronized void releaseTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized void record(long nanos, boolean success) {
+            long now = System.nanoTime();
+            latencies[next] = nanos;
+            finishedAt[next] = now;
+            failed[next] = !success;
+            next = (next + 1) % windowSize;
+            count = Math.min(count + 1, windowSize);
+
+            if (success) {
+                consecutiveFailures = 0;
+                if (breaker == BreakerState.HALF_OPEN) {
+                    // Start the closed period from a clean window
+                    Arrays.fill(failed, false);
+                    trialInFlight = false;
+                    transition(BreakerState.CLOSED);
+                }
+                return;
+            }
+
+            consecutiveFailures++;
+            if (breaker == BreakerState.HALF_OPEN
+                    || consecutiveFailures >= failureThreshold
+                    || (count >= minCalls && errorRate(now) >= errorRateThreshold)) {
+                trialInFlight = false;
+                openedAt = now;
+                if (breaker != BreakerState.OPEN) {
+                    transition(BreakerState.OPEN);
+                }
+            }
+        }
+
+        private void transition(BreakerState to) {
+            log.warn("Circuit breaker for engine {}: {} -> {}", name, breaker, to);
+            breaker = to;
+            Counter.builder("chat.router.breaker.transitions")
+                    .tag("engine", name)
+                    .tag("state", to.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
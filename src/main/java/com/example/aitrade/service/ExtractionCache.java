@@ -0,0 +1,174 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ChatRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Caches extraction results keyed on a hash of (user type, normalized message, engine, model),
+ * so near-identical first messages skip the extraction LLM call.
+ *
+ * Only a session's first message may be cached: the key carries no conversation, so a later
+ * message ("yes", "Leeds") would be served another session's extraction. ChatService enforces
+ * that by consulting the cache for opening messages only.
+ *
+ * An optional similarity tier matches messages whose word sets overlap by at least
+ * {@code app.extraction.cache.similarity-threshold} (Jaccard); 0 disables it.
+ */
+@Component
+public class ExtractionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionCache.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}£$€]+");
+
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final Map<String, String> modelsByEngine;
+    private final Cache<String, Entry> cache;
+
+    // Running mean of uncached extraction latency, used to estimate time saved per hit
+    private final AtomicLong missNanosTotal = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final Counter latencySaved;
+    private final Counter similarHits;
+
+    public ExtractionCache(@Value("${app.extraction.cache.enabled:true}") boolean enabled,
+                           @Value("${app.extraction.cache.max-entries:10000}") long maxEntries,
+                           @Value("${app.extraction.cache.ttl:1h}") Duration ttl,
+                           @Value("${app.extraction.cache.similarity-threshold:0}") double similarityThreshold,
+                           @Value("${spring.ai.ollama.chat.model:}") String ollamaModel,
+                           @Value("${spring.ai.openai.chat.model:}") String groqModel,
+                           @Value("${app.xai.model:}") String grokModel,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.modelsByEngine = Map.of("ollama", ollamaModel, "groq", groqModel, "grok", grokModel);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "chat.extraction.cache");
+        this.latencySaved = Counter.builder("chat.extraction.cache.latency.saved")
+                .description("Estimated extraction latency avoided by cache hits")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.similarHits = Counter.builder("chat.extraction.cache.similar.hits").register(meterRegistry);
+
+        log.info("Extraction cache: enabled={}, maxEntries={}, ttl={}, similarityThreshold={}",
+                enabled, maxEntries, ttl, similarityThreshold);
+    }
+
+    public Optional<Map<String, Object>> get(ChatRequest.UserType userType, String message, String engine) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String normalized = normalize(message);
+        Entry entry = cache.getIfPresent(key(userType, normalized, engine));
+        if (entry == null && similarityThreshold > 0) {
+            entry = findSimilar(userType, engine, words(normalized));
+            if (entry != null) {
+                similarHits.increment();
+            }
+        }
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long misses = missCount.get();
+        if (misses > 0) {
+            latencySaved.increment(missNanosTotal.get() / (double) misses / 1_000_000_000.0);
+        }
+        // Callers add per-turn fields, so hand out a copy
+        return Optional.of(new HashMap<>(entry.info));
+    }
+
+    public void put(ChatRequest.UserType userType, String message, String engine,
+                    Map<String, Object> info, long extractionNanos) {
+        missNanosTotal.addAndGet(extractionNanos);
+        missCount.incrementAndGet();
+        // Nothing extracted usually means a failed call; don't pin that for the TTL
+        if (!enabled || info.values().stream().allMatch(Objects::isNull)) {
+            return;
+        }
+        String normalized = normalize(message);
+        cache.put(key(userType, normalized, engine),
+                new Entry(userType, engine, words(normalized), Collections.unmodifiableMap(new HashMap<>(info))));
+    }
+
+    private Entry findSimilar(ChatRequest.UserType userType, String engine, Set<String> words) {
+        Entry best = null;
+        double bestScore = similarityThreshold;
+        for (Entry candidate : cache.asMap().values()) {
+            if (candidate.userType != userType || !candidate.engine.equals(engine)) {
+                continue;
+            }
+            double score = jaccard(words, candidate.words);
+            if (score >= bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private String key(ChatRequest.UserType userType, String normalized, String engine) {
+        String model = modelsByEngine.getOrDefault(engine, "");
+        String composite = userType.name() + '\u0000' + engine + '\u0000' + model + '\u0000' + normalized;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(composite.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String normalize(String message) {
+        return NON_WORD.matcher(message.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    private static Set<String> words(String normalized) {
+        return normalized.isEmpty() ? Set.of() : new HashSet<>(Arrays.asList(normalized.split(" ")));
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int common = 0;
+        for (String word : a) {
+            if (b.contains(word)) {
+                common++;
+            }
+        }
+        return common / (double) (a.size() + b.size() - common);
+    }
+
+    private record Entry(ChatRequest.UserType userType, String engine, Set<String> words, Map<String, Object> info) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ExtractionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs information extraction off the request thread and keeps the latest result per session.
+ *
+ * Tasks run on virtual threads; a semaphore caps how many extraction calls hit the engine at
+ * once and submissions beyond the queue capacity are rejected so the caller can degrade.
+ */
+@Component
+public class ExtractionExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionExecutor.class);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("extraction-", 0).factory());
+
+    private final Semaphore permits;
+    private final int queueCapacity;
+    private final int maxTrackedSessions;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, Tracked> results;
+
+    private final Timer lag;
+    private final Counter rejected;
+
+    public ExtractionExecutor(@Value("${app.extraction.max-concurrent:8}") int maxConcurrent,
+                              @Value("${app.extraction.queue-capacity:200}") int queueCapacity,
+                              @Value("${app.extraction.max-tracked-sessions:10000}") int maxTrackedSessions,
+                              MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.queueCapacity = queueCapacity;
+        this.maxTrackedSessions = maxTrackedSessions;
+        this.results = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Tracked> eldest) {
+                return size() > ExtractionExecutor.this.maxTrackedSessions;
+            }
+        };
+
+        this.lag = Timer.builder("chat.extraction.lag")
+                .description("Time from reply returned to extraction result available")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chat.extraction.rejected").register(meterRegistry);
+        Gauge.builder("chat.extraction.queue.depth", queued, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("chat.extraction.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Queue an extraction for a session and mark its result as pending. If the task throws, the
+     * pending result is kept with status FAILED.
+     *
+     * @param pending result to serve until the task completes
+     * @return false if the queue is full and the task was not accepted
+     */
+    public boolean submit(String sessionId, ExtractionResult pending, Supplier<ExtractionResult> task) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            log.warn("Extraction queue full ({}), rejecting extraction for session {}", queueCapacity, sessionId);
+            return false;
+        }
+
+        long seq = sequence.incrementAndGet();
+        store(sessionId, seq, pending);
+        long submittedAt = System.nanoTime();
+        Map<String, String> logContext = MDC.getCopyOfContextMap();
+
+        executor.execute(() -> {
+            if (logContext != null) {
+                MDC.setContextMap(logContext);
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                store(sessionId, seq, failed(pending));
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queued.decrementAndGet();
+            inFlight.incrementAndGet();
+            try {
+                store(sessionId, seq, task.get());
+                lag.record(Duration.ofNanos(System.nanoTime() - submittedAt));
+            } catch (Exception e) {
+                log.error("Async extraction failed for session {}", sessionId, e);
+                store(sessionId, seq, failed(pending));
+            } finally {
+                inFlight.decrementAndGet();
+                permits.release();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Record a result that was produced inline, superseding any pending task for the session.
+     */
+    public void complete(String sessionId, ExtractionResult result) {
+        store(sessionId, sequence.incrementAndGet(), result);
+    }
+
+    public Optional<ExtractionResult> latest(String sessionId) {
+        synchronized (results) {
+            Tracked tracked = results.get(sessionId);
+            return tracked != null ? Optional.of(tracked.result) : Optional.empty();
+        }
+    }
+
+    public void clear(String sessionId) {
+        synchronized (results) {
+            results.remove(sessionId);
+        }
+    }
+
+    private void store(String sessionId, long seq, ExtractionResult result) {
+        synchronized (results) {
+            Tracked existing = results.get(sessionId);
+            // A slow extraction for an older turn must not overwrite a newer one
+            if (existing == null || existing.seq < seq) {
+                results.put(sessionId, new Tracked(seq, result));
+            }
+        }
+    }
+
+    static ExtractionResult pending(String sessionId, Map<String, Object> provisionalInfo,
+                                    boolean requiresMoreInfo, String nextAction) {
+        return new ExtractionResult(sessionId, ExtractionResult.Status.PENDING, provisionalInfo,
+                requiresMoreInfo, nextAction, LocalDateTime.now());
+    }
+
+    private static ExtractionResult failed(ExtractionResult pending) {
+        return new ExtractionResult(pending.sessionId(), ExtractionResult.Status.FAILED, pending.extractedInfo(),
+                pending.requiresMoreInfo(), pending.nextAction(), LocalDateTime.now());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record Tracked(long seq, ExtractionResult result) {
+    }
+}
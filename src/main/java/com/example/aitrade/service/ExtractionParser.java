@@ -0,0 +1,250 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ServiceRequest;
+import com.example.aitrade.model.TradespersonProfile;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming parser for extraction completions.
+ *
+ * Skips anything before the first '{' (code fences, "Here is the JSON:" prose), reads exactly
+ * one object with Jackson's {@link JsonParser} and binds it straight into the typed records
+ * without building an intermediate tree. Unknown fields are skipped; enum values are matched
+ * case-insensitively with unrecognised values mapped to OTHER/UNKNOWN.
+ */
+@Component
+public class ExtractionParser {
+
+    private final JsonFactory jsonFactory = JsonFactory.builder().build();
+
+    public ServiceRequest parseServiceRequest(String completion) throws IOException {
+        try (JsonParser parser = openObject(completion)) {
+            return parseServiceRequest(parser);
+        }
+    }
+
+    public TradespersonProfile parseTradespersonProfile(String completion) throws IOException {
+        try (JsonParser parser = openObject(completion)) {
+            return parseTradespersonProfile(parser);
+        }
+    }
+
+    /**
+     * Read one extraction object from a parser positioned on its START_OBJECT, such as the
+     * "extraction" member of a combined reply.
+     */
+    ServiceRequest parseServiceRequest(JsonParser parser) throws IOException {
+        ServiceRequest.ServiceType serviceType = null;
+        ServiceRequest.Urgency urgency = null;
+        String location = null;
+        String budgetRange = null;
+        Boolean isEmergency = null;
+        String jobDescription = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "serviceType" -> serviceType = serviceType(text(parser, value));
+                case "urgency" -> urgency = urgency(text(parser, value));
+                case "location" -> location = text(parser, value);
+                case "budgetRange", "budget" -> budgetRange = text(parser, value);
+                case "isEmergency" -> isEmergency = bool(parser, value);
+                case "jobDescription", "specificNeeds" -> jobDescription = text(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+        return new ServiceRequest(serviceType, urgency, location, budgetRange, isEmergency, jobDescription);
+    }
+
+    TradespersonProfile parseTradespersonProfile(JsonParser parser) throws IOException {
+        List<String> tradeSkills = null;
+        Boolean qualified = null;
+        TradespersonProfile.Availability availability = null;
+        List<String> serviceAreas = null;
+        TradespersonProfile.ExperienceLevel experienceLevel = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "tradeSkills" -> tradeSkills = textList(parser, value);
+                case "qualified" -> qualified = bool(parser, value);
+                case "availability" -> availability = availability(text(parser, value));
+                case "serviceAreas" -> serviceAreas = textList(parser, value);
+                case "experienceLevel" -> experienceLevel = experienceLevel(text(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        return new TradespersonProfile(tradeSkills, qualified, availability, serviceAreas, experienceLevel);
+    }
+
+    /**
+     * Map a customer extraction onto the keys exposed in {@code ChatResponse.extractedInfo}.
+     * Fields that were not extracted are left out.
+     */
+    public static Map<String, Object> toExtractedInfo(ServiceRequest request) {
+        Map<String, Object> info = new HashMap<>();
+        if (request.serviceType() != null) {
+            info.put("serviceType", request.serviceType().name());
+        }
+        if (request.urgency() != null && request.urgency() != ServiceRequest.Urgency.UNKNOWN) {
+            info.put("urgency", request.urgency().name());
+        }
+        putIfPresent(info, "location", request.location());
+        if (request.budgetRange() != null && !request.budgetRange().isBlank()) {
+            info.put("budget", request.budgetRange());
+            // Only when true: a derived false would make an empty extraction look non-empty
+            info.put("hasBudget", true);
+        }
+        putIfPresent(info, "isEmergency", request.isEmergency());
+        putIfPresent(info, "specificNeeds", request.jobDescription());
+        return info;
+    }
+
+    /**
+     * Map a tradesperson extraction onto the keys exposed in {@code ChatResponse.extractedInfo}.
+     */
+    public static Map<String, Object> toExtractedInfo(TradespersonProfile profile) {
+        Map<String, Object> info = new HashMap<>();
+        putIfPresent(info, "tradeSkills", profile.tradeSkills());
+        putIfPresent(info, "qualified", profile.qualified());
+        if (profile.availability() != null && profile.availability() != TradespersonProfile.Availability.UNKNOWN) {
+            info.put("availability", profile.availability().name());
+        }
+        putIfPresent(info, "serviceAreas", profile.serviceAreas());
+        if (profile.experienceLevel() != null) {
+            info.put("experienceLevel", profile.experienceLevel().name());
+        }
+        return info;
+    }
+
+    private JsonParser openObject(String completion) throws IOException {
+        int start = completion != null ? completion.indexOf('{') : -1;
+        if (start < 0) {
+            throw new IOException("No JSON object in extraction output");
+        }
+        // The parser stops at the end of the first object, so trailing fences/prose are never read
+        JsonParser parser = jsonFactory.createParser(completion.substring(start));
+        parser.nextToken();
+        return parser;
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            String value = parser.getText().strip();
+            return value.isEmpty() || "null".equalsIgnoreCase(value) ? null : value;
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Boolean bool(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_STRING -> switch (parser.getText().strip().toLowerCase(Locale.ROOT)) {
+                case "true", "yes" -> Boolean.TRUE;
+                case "false", "no" -> Boolean.FALSE;
+                default -> null;
+            };
+            default -> {
+                parser.skipChildren();
+                yield null;
+            }
+        };
+    }
+
+    private static List<String> textList(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_ARRAY) {
+            List<String> values = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                String value = text(parser, parser.currentToken());
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return values.isEmpty() ? null : values;
+        }
+        // Models sometimes answer "plumbing, tiling" instead of an array
+        String value = text(parser, token);
+        if (value == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                values.add(part.strip());
+            }
+        }
+        return values;
+    }
+
+    private static ServiceRequest.ServiceType serviceType(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toUpperCase(Locale.ROOT)) {
+            case "PLUMBING" -> ServiceRequest.ServiceType.PLUMBING;
+            case "ELECTRICAL" -> ServiceRequest.ServiceType.ELECTRICAL;
+            case "PAINTING" -> ServiceRequest.ServiceType.PAINTING;
+            case "CARPENTRY" -> ServiceRequest.ServiceType.CARPENTRY;
+            case "GARDENING" -> ServiceRequest.ServiceType.GARDENING;
+            default -> ServiceRequest.ServiceType.OTHER;
+        };
+    }
+
+    private static ServiceRequest.Urgency urgency(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toUpperCase(Locale.ROOT)) {
+            case "HIGH" -> ServiceRequest.Urgency.HIGH;
+            case "MEDIUM" -> ServiceRequest.Urgency.MEDIUM;
+            case "LOW" -> ServiceRequest.Urgency.LOW;
+            default -> ServiceRequest.Urgency.UNKNOWN;
+        };
+    }
+
+    private static TradespersonProfile.Availability availability(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toUpperCase(Locale.ROOT)) {
+            case "AVAILABLE" -> TradespersonProfile.Availability.AVAILABLE;
+            case "BUSY" -> TradespersonProfile.Availability.BUSY;
+            default -> TradespersonProfile.Availability.UNKNOWN;
+        };
+    }
+
+    private static TradespersonProfile.ExperienceLevel experienceLevel(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toUpperCase(Locale.ROOT)) {
+            case "BEGINNER" -> TradespersonProfile.ExperienceLevel.BEGINNER;
+            case "INTERMEDIATE" -> TradespersonProfile.ExperienceLevel.INTERMEDIATE;
+            case "EXPERT" -> TradespersonProfile.ExperienceLevel.EXPERT;
+            default -> TradespersonProfile.ExperienceLevel.UNKNOWN;
+        };
+    }
+
+    private static void putIfPresent(Map<String, Object> info, String key, Object value) {
+        if (value != null) {
+            info.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.JobRequest;
+import com.example.aitrade.model.Tradesperson;
+import com.example.aitrade.repository.JobRequestRepository;
+import com.example.aitrade.repository.TradespersonRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind persistence of completed extractions as {@link JobRequest} and
+ * {@link Tradesperson} rows.
+ *
+ * {@link #submit} only enqueues, so a chat turn never waits on the database. A single writer
+ * thread flushes once {@code batch-size} entities are queued or the oldest has waited
+ * {@code flush-interval}, saving the batch in one transaction so Hibernate sends it as JDBC
+ * batches ({@code hibernate.jdbc.batch_size}, ordered inserts). When the queue is full new
+ * entities are dropped and counted rather than blocking the caller.
+ *
+ * Every turn after an extraction completes submits it again, so writes are upserts: one job
+ * request per session and one profile per tradesperson. A flush keeps the latest entity per key,
+ * looks up the rows already stored for those keys in one query per type, updates those and
+ * inserts the rest.
+ */
+@Component
+public class ExtractionWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionWriter.class);
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final JobRequestRepository jobRequestRepository;
+    private final TradespersonRepository tradespersonRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Holds JobRequest and Tradesperson entities; a flush splits them by type
+    private final BlockingQueue<Object> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final Counter jobsWritten;
+    private final Counter profilesWritten;
+    private final Counter droppedFull;
+    private final Counter droppedError;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+
+    public ExtractionWriter(@Value("${app.persistence.enabled:true}") boolean enabled,
+                            @Value("${app.persistence.batch-size:50}") int batchSize,
+                            @Value("${app.persistence.flush-interval:2s}") Duration flushInterval,
+                            @Value("${app.persistence.queue-capacity:10000}") int queueCapacity,
+                            JobRequestRepository jobRequestRepository,
+                            TradespersonRepository tradespersonRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.jobRequestRepository = jobRequestRepository;
+        this.tradespersonRepository = tradespersonRepository;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.jobsWritten = Counter.builder("chat.persistence.written").tag("entity", "job_request").register(meterRegistry);
+        this.profilesWritten = Counter.builder("chat.persistence.written").tag("entity", "tradesperson").register(meterRegistry);
+        this.droppedFull = Counter.builder("chat.persistence.dropped").tag("reason", "queue_full").register(meterRegistry);
+        this.droppedError = Counter.builder("chat.persistence.dropped").tag("reason", "error").register(meterRegistry);
+        this.flushTimer = Timer.builder("chat.persistence.flush")
+                .description("Time to write one batch of extracted entities")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("chat.persistence.batch.size").register(meterRegistry);
+        Gauge.builder("chat.persistence.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+
+        if (enabled) {
+            this.writer = Thread.ofPlatform().name("extraction-writer").daemon().start(this::run);
+        } else {
+            this.writer = null;
+        }
+        log.info("Extraction persistence: enabled={}, batchSize={}, flushInterval={}, queueCapacity={}",
+                enabled, batchSize, flushInterval, queueCapacity);
+    }
+
+    /**
+     * Queue a customer's completed job request for persistence.
+     */
+    public void submit(JobRequest jobRequest) {
+        enqueue(jobRequest, jobRequest.getCustomerId());
+    }
+
+    /**
+     * Queue a tradesperson's completed profile for persistence.
+     */
+    public void submit(Tradesperson profile) {
+        enqueue(profile, profile.getTradespersonId());
+    }
+
+    private void enqueue(Object entity, String ownerId) {
+        if (!enabled) {
+            return;
+        }
+        if (!queue.offer(entity)) {
+            droppedFull.increment();
+            log.warn("Persistence queue full, dropping extraction for {}", ownerId);
+        }
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Fill up to batch-size, but never hold the first entity longer than flush-interval
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Object next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Object> batch) {
+        // Latest entity per session / tradesperson; earlier ones in the batch are superseded
+        Map<String, JobRequest> jobs = new LinkedHashMap<>();
+        Map<String, Tradesperson> profiles = new LinkedHashMap<>();
+        for (Object entity : batch) {
+            if (entity instanceof JobRequest job) {
+                jobs.put(job.getSessionId(), job);
+            } else {
+                Tradesperson profile = (Tradesperson) entity;
+                profiles.put(profile.getTradespersonId(), profile);
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                upsertJobs(jobs);
+                upsertProfiles(profiles);
+            });
+            jobsWritten.increment(jobs.size());
+            profilesWritten.increment(profiles.size());
+            batchSizes.record(batch.size());
+        } catch (RuntimeException e) {
+            droppedError.increment(batch.size());
+            log.error("Failed to persist {} extracted entities", batch.size(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Update the stored rows for these sessions in place (flushed on commit by dirty checking)
+     * and insert the others.
+     */
+    private void upsertJobs(Map<String, JobRequest> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        Map<String, JobRequest> stored = new HashMap<>();
+        for (JobRequest row : jobRequestRepository.findBySessionIdIn(jobs.keySet())) {
+            stored.putIfAbsent(row.getSessionId(), row);
+        }
+        List<JobRequest> inserts = new ArrayList<>();
+        for (JobRequest job : jobs.values()) {
+            JobRequest row = stored.get(job.getSessionId());
+            if (row == null) {
+                inserts.add(job);
+                continue;
+            }
+            row.setCustomerId(job.getCustomerId());
+            row.setServiceType(job.getServiceType());
+            row.setUrgency(job.getUrgency());
+            row.setLocation(job.getLocation());
+            row.setBudgetRange(job.getBudgetRange());
+            row.setDescription(job.getDescription());
+        }
+        jobRequestRepository.saveAll(inserts);
+    }
+
+    private void upsertProfiles(Map<String, Tradesperson> profiles) {
+        if (profiles.isEmpty()) {
+            return;
+        }
+        Map<String, Tradesperson> stored = new HashMap<>();
+        for (Tradesperson row : tradespersonRepository.findByTradespersonIdIn(profiles.keySet())) {
+            stored.putIfAbsent(row.getTradespersonId(), row);
+        }
+        List<Tradesperson> inserts = new ArrayList<>();
+        for (Tradesperson profile : profiles.values()) {
+            Tradesperson row = stored.get(profile.getTradespersonId());
+            if (row == null) {
+                inserts.add(profile);
+                continue;
+            }
+            row.setTradeSkills(profile.getTradeSkills());
+            row.setQualified(profile.getQualified());
+            row.setAvailability(profile.getAvailability());
+            row.setServiceAreas(profile.getServiceAreas());
+            row.setExperienceLevel(profile.getExperienceLevel());
+        }
+        tradespersonRepository.saveAll(inserts);
+    }
+
+    static JobRequest toJobRequest(String customerId, String sessionId, Map<String, Object> info) {
+        return JobRequest.builder()
+                .customerId(customerId)
+                .sessionId(sessionId)
+                .serviceType(string(info.get("serviceType")))
+                .urgency(string(info.get("urgency")))
+                .location(string(info.get("location")))
+                .budgetRange(string(info.get("budget")))
+                .description(string(info.get("specificNeeds")))
+                .createdAt(LocalDateTime.now())
+                .status("OPEN")
+                .build();
+    }
+
+    static Tradesperson toTradesperson(String tradespersonId, Map<String, Object> info) {
+        return Tradesperson.builder()
+                .tradespersonId(tradespersonId)
+                .tradeSkills(string(info.get("tradeSkills")))
+                .qualified(info.get("qualified") instanceof Boolean qualified ? qualified : null)
+                .availability(string(info.get("availability")))
+                .serviceAreas(string(info.get("serviceAreas")))
+                .experienceLevel(string(info.get("experienceLevel")))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static String string(Object value) {
+        if (value instanceof Collection<?> values) {
+            return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            // The writer drains what is left before exiting
+            writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5_000);
+        }
+    }
+}
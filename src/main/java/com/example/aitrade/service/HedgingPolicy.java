@@ -0,0 +1,131 @@
+package com.example.aitrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Settings and per-engine budgets for hedged LLM calls.
+ *
+ * When a non-streaming call hasn't returned after the engine's recent
+ * {@code app.hedge.percentile} latency (never less than {@code min-delay}), the
+ * {@link EngineRouter} fires a second request, preferably to another engine, and takes
+ * whichever answers first.
+ *
+ * Each engine earns {@code budget-ratio} of a hedge per call it serves as primary, up to
+ * {@code budget-burst}, so hedges stay a bounded fraction of that engine's traffic.
+ */
+@Component
+public class HedgingPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgingPolicy.class);
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final double budgetBurst;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    public HedgingPolicy(@Value("${app.hedge.enabled:false}") boolean enabled,
+                         @Value("${app.hedge.percentile:0.95}") double percentile,
+                         @Value("${app.hedge.min-delay:300ms}") Duration minDelay,
+                         @Value("${app.hedge.budget-ratio:0.05}") double budgetRatio,
+                         @Value("${app.hedge.budget-burst:10}") double budgetBurst,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.budgetBurst = budgetBurst;
+        this.meterRegistry = meterRegistry;
+        log.info("Hedged LLM calls: enabled={}, percentile={}, minDelay={}, budgetRatio={}, budgetBurst={}",
+                enabled, percentile, minDelay, budgetRatio, budgetBurst);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double percentile() {
+        return percentile;
+    }
+
+    public long minDelayNanos() {
+        return minDelayNanos;
+    }
+
+    /**
+     * Credit the engine's budget for a call it is serving as primary.
+     */
+    public void onPrimaryCall(String engine) {
+        if (enabled) {
+            budget(engine).deposit(budgetRatio, budgetBurst);
+        }
+    }
+
+    /**
+     * Take one hedge from the primary engine's budget.
+     */
+    public boolean tryAcquire(String engine) {
+        if (budget(engine).tryWithdraw()) {
+            return true;
+        }
+        Counter.builder("chat.hedge.budget.exhausted")
+                .description("Hedges skipped because the engine's hedge budget was empty")
+                .tag("engine", engine)
+                .register(meterRegistry)
+                .increment();
+        return false;
+    }
+
+    public void recordFired(String engine, String target) {
+        Counter.builder("chat.hedge.fired")
+                .description("Hedge requests sent for slow primary calls")
+                .tag("engine", engine)
+                .tag("target", target)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordWon(String engine, String target) {
+        Counter.builder("chat.hedge.won")
+                .description("Hedge requests that answered before the primary")
+                .tag("engine", engine)
+                .tag("target", target)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Budget budget(String engine) {
+        return budgets.computeIfAbsent(engine, key -> new Budget(budgetBurst));
+    }
+
+    private static final class Budget {
+        private double tokens;
+
+        private Budget(double initial) {
+            this.tokens = initial;
+        }
+
+        synchronized void deposit(double amount, double max) {
+            tokens = Math.min(max, tokens + amount);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.aitrade.service;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link ChatEngine} whose client is built on its first call. Used for fallback engines that
+ * are not {@code app.active-ai-engine}, so startup doesn't pay for clients that may never be
+ * routed to.
+ */
+public class LazyChatEngine implements ChatEngine {
+
+    private final String name;
+    private final Supplier<ChatEngine> factory;
+    private volatile ChatEngine delegate;
+
+    public LazyChatEngine(String name, Supplier<ChatEngine> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String call(List<Message> messages) throws Exception {
+        return delegate().call(messages);
+    }
+
+    @Override
+    public String stream(List<Message> messages, Consumer<String> onToken) throws Exception {
+        return delegate().stream(messages, onToken);
+    }
+
+    private ChatEngine delegate() {
+        ChatEngine engine = delegate;
+        if (engine == null) {
+            synchronized (this) {
+                engine = delegate;
+                if (engine == null) {
+                    engine = factory.get();
+                    delegate = engine;
+                }
+            }
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.aitrade.service;
+
+import java.util.Locale;
+
+/**
+ * Scheduling class of an LLM call, used by {@link EngineBulkhead} to order waiting calls.
+ */
+public enum LlmPriority {
+    /** Customer turns flagged urgent or emergency. */
+    URGENT,
+    /** Other customer turns. */
+    STANDARD,
+    /** Tradesperson turns. */
+    BROWSING,
+    /** Work nobody is waiting on, such as background extraction. */
+    BACKGROUND;
+
+    public String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.aitrade.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled capture of LLM prompts and replies, logged as key-value pairs on the
+ * {@code com.example.aitrade.payload} logger.
+ *
+ * Only {@code sample-rate} of calls are captured, and each text is cut to {@code max-chars},
+ * so payload logging costs nothing on unsampled calls and stays bounded on sampled ones. The
+ * prompt is represented by its last message (the user turn or extraction instruction) and its
+ * size; system prompt and history are not repeated.
+ */
+@Component
+public class PayloadLogger {
+
+    private static final Logger log = LoggerFactory.getLogger("com.example.aitrade.payload");
+
+    private final double sampleRate;
+    private final int maxChars;
+
+    public PayloadLogger(@Value("${app.logging.payload.sample-rate:1.0}") double sampleRate,
+                         @Value("${app.logging.payload.max-chars:4096}") int maxChars) {
+        this.sampleRate = sampleRate;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * @param call what the call was for ("chat", "extraction" or "stream")
+     */
+    public void log(String call, List<Message> prompt, String reply) {
+        if (sampleRate <= 0 || !log.isInfoEnabled()
+                || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        Message last = prompt.get(prompt.size() - 1);
+        log.atInfo()
+                .addKeyValue("call", call)
+                .addKeyValue("promptMessages", prompt.size())
+                .addKeyValue("prompt", cap(last.getContent()))
+                .addKeyValue("reply", cap(reply))
+                .log("LLM payload");
+    }
+
+    /**
+     * Cut {@code text} to the configured size, noting how much was dropped.
+     */
+    public String cap(String text) {
+        if (text == null || text.length() <= maxChars) {
+            return text;
+        }
+        return text.substring(0, maxChars) + "...[" + (text.length() - maxChars) + " more chars]";
+    }
+}
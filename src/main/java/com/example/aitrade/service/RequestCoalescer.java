@@ -0,0 +1,132 @@
+package com.example.aitrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-flight for non-streaming LLM calls: while a call with the same prompt fingerprint is
+ * in flight, identical calls wait for its result instead of going upstream themselves.
+ *
+ * Only call kinds listed in {@code app.coalescing.calls} are shared. A caller only joins a
+ * flight started at the same or a more urgent {@link LlmPriority}, so urgent turns never wait
+ * behind a queued background call. Failures are shared with everyone who joined.
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final boolean enabled;
+    private final Set<String> calls;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public RequestCoalescer(@Value("${app.coalescing.enabled:true}") boolean enabled,
+                            @Value("${app.coalescing.calls:extraction,chat}") Set<String> calls,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.calls = calls;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("chat.coalescing.waiters", waiters, AtomicInteger::get)
+                .description("Callers currently waiting on an identical in-flight LLM call")
+                .register(meterRegistry);
+        Gauge.builder("chat.coalescing.in.flight", inFlight, ConcurrentHashMap::size).register(meterRegistry);
+        log.info("LLM call coalescing: enabled={}, calls={}", enabled, calls);
+    }
+
+    /**
+     * Run {@code upstream}, or share the result of an identical call already in flight.
+     *
+     * @param call what the call is for ("chat" or "extraction")
+     */
+    public String execute(String call, LlmPriority priority, List<Message> messages,
+                          EngineBulkhead.EngineCall<String> upstream) throws Exception {
+        if (!enabled || !calls.contains(call)) {
+            return upstream.call();
+        }
+        String key = fingerprint(call, messages);
+        Flight mine = new Flight(priority);
+        Flight existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            if (existing.priority.ordinal() <= priority.ordinal()) {
+                return join(call, existing);
+            }
+            // The running call would be admitted after ours; go upstream directly
+            return upstream.call();
+        }
+
+        try {
+            String result = upstream.call();
+            mine.result.complete(result);
+            return result;
+        } catch (Exception | Error e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private String join(String call, Flight flight) throws Exception {
+        Counter.builder("chat.coalescing.saved.calls")
+                .description("LLM calls not sent because an identical call was already in flight")
+                .tag("call", call)
+                .register(meterRegistry)
+                .increment();
+        waiters.incrementAndGet();
+        try {
+            return flight.result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    private static String fingerprint(String call, List<Message> messages) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(call.getBytes(StandardCharsets.UTF_8));
+        for (Message message : messages) {
+            // Separators keep ("ab", "c") and ("a", "bc") apart
+            digest.update((byte) 0);
+            digest.update(message.getMessageType().name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (message.getContent() != null) {
+                digest.update(message.getContent().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static final class Flight {
+        private final LlmPriority priority;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private Flight(LlmPriority priority) {
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ChatRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client rate limits on chat turns, keyed by client IP, user id and session id; a turn
+ * must fit within every bucket that applies to it.
+ *
+ * Each bucket is a token bucket in its single-word form (GCRA): an {@link AtomicLong} holds
+ * the time at which the bucket would be full again, and a request is admitted with one CAS
+ * if that time is at most {@code burst} emission intervals ahead. Buckets live in a bounded
+ * Caffeine map and are dropped after {@code idle-eviction} without use; an idle bucket has
+ * refilled by then, so eviction never loses state that matters.
+ */
+@Component
+public class RequestRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestRateLimiter.class);
+
+    private final boolean enabled;
+    private final Limit customer;
+    private final Limit tradesperson;
+    private final Limit ip;
+    private final Cache<String, AtomicLong> buckets;
+
+    private final Counter rejectedIp;
+    private final Counter rejectedUser;
+    private final Counter rejectedSession;
+
+    public RequestRateLimiter(@Value("${app.rate-limit.enabled:true}") boolean enabled,
+                              @Value("${app.rate-limit.customer.per-minute:20}") double customerPerMinute,
+                              @Value("${app.rate-limit.customer.burst:10}") int customerBurst,
+                              @Value("${app.rate-limit.tradesperson.per-minute:20}") double tradespersonPerMinute,
+                              @Value("${app.rate-limit.tradesperson.burst:10}") int tradespersonBurst,
+                              @Value("${app.rate-limit.ip.per-minute:60}") double ipPerMinute,
+                              @Value("${app.rate-limit.ip.burst:30}") int ipBurst,
+                              @Value("${app.rate-limit.max-keys:100000}") long maxKeys,
+                              @Value("${app.rate-limit.idle-eviction:10m}") Duration idleEviction,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.customer = new Limit(customerPerMinute, customerBurst);
+        this.tradesperson = new Limit(tradespersonPerMinute, tradespersonBurst);
+        this.ip = new Limit(ipPerMinute, ipBurst);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleEviction)
+                .build();
+
+        this.rejectedIp = Counter.builder("chat.ratelimit.rejected").tag("scope", "ip").register(meterRegistry);
+        this.rejectedUser = Counter.builder("chat.ratelimit.rejected").tag("scope", "user").register(meterRegistry);
+        this.rejectedSession = Counter.builder("chat.ratelimit.rejected").tag("scope", "session").register(meterRegistry);
+        Gauge.builder("chat.ratelimit.keys", buckets, Cache::estimatedSize).register(meterRegistry);
+
+        log.info("Chat rate limits: enabled={}, customer={}/min burst {}, tradesperson={}/min burst {}, ip={}/min burst {}",
+                enabled, customerPerMinute, customerBurst, tradespersonPerMinute, tradespersonBurst, ipPerMinute, ipBurst);
+    }
+
+    /**
+     * Charge one chat turn to each applicable bucket. A turn is charged to all of them or to
+     * none: if one bucket rejects it, the buckets already charged are refunded.
+     *
+     * @param userId caller's user id, or null
+     * @param sessionId conversation id, or null for a new conversation
+     * @throws RateLimitExceededException if any bucket is empty
+     */
+    public void check(ChatRequest.UserType userType, String userId, String sessionId, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        Limit perClient = userType == ChatRequest.UserType.TRADESPERSON ? tradesperson : customer;
+        AtomicLong ipBucket = null;
+        AtomicLong userBucket = null;
+        try {
+            if (clientIp != null) {
+                ipBucket = acquire("ip:" + clientIp, ip, now, rejectedIp);
+            }
+            if (userId != null && !userId.isBlank()) {
+                userBucket = acquire("user:" + userType + ":" + userId, perClient, now, rejectedUser);
+            }
+            if (sessionId != null && !sessionId.isBlank()) {
+                acquire("session:" + sessionId, perClient, now, rejectedSession);
+            }
+        } catch (RateLimitExceededException e) {
+            // A rejected turn must not use up the client's other allowances
+            refund(ipBucket, ip);
+            refund(userBucket, perClient);
+            throw e;
+        }
+    }
+
+    private AtomicLong acquire(String key, Limit limit, long now, Counter rejected) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            long overdraw = start + limit.intervalNanos - now;
+            if (overdraw > limit.toleranceNanos) {
+                rejected.increment();
+                throw new RateLimitExceededException(
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(overdraw - limit.toleranceNanos + 999_999_999)));
+            }
+            if (bucket.compareAndSet(fullAt, start + limit.intervalNanos)) {
+                return bucket;
+            }
+        }
+    }
+
+    // Give back one charge; a full-at time that falls into the past just means a full bucket
+    private static void refund(AtomicLong bucket, Limit limit) {
+        if (bucket != null) {
+            bucket.addAndGet(-limit.intervalNanos);
+        }
+    }
+
+    /**
+     * Requests per minute with room for {@code burst} back to back.
+     */
+    private static final class Limit {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        private Limit(double perMinute, int burst) {
+            this.intervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / perMinute);
+            this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        }
+    }
+
+    public static class RateLimitExceededException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public RateLimitExceededException(long retryAfterSeconds) {
+            super("Rate limit exceeded, retry after " + retryAfterSeconds + "s");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
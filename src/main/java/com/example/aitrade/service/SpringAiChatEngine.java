@@ -0,0 +1,82 @@
+package com.example.aitrade.service;
+
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.ChatResponse;
+import org.springframework.ai.chat.StreamingChatClient;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@link ChatEngine} backed by a Spring AI {@link ChatClient} (Ollama, Groq).
+ */
+public class SpringAiChatEngine implements ChatEngine {
+
+    private final String name;
+    private final ChatClient chatClient;
+    private final ChatMetrics chatMetrics;
+
+    public SpringAiChatEngine(String name, ChatClient chatClient, ChatMetrics chatMetrics) {
+        this.name = name;
+        this.chatClient = chatClient;
+        this.chatMetrics = chatMetrics;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String call(List<Message> messages) {
+        ChatResponse response = chatClient.call(new Prompt(messages));
+        String reply = response.getResult().getOutput().getContent();
+        recordUsage(response.getMetadata() != null ? response.getMetadata().getUsage() : null, messages, reply);
+        return reply;
+    }
+
+    @Override
+    public String stream(List<Message> messages, Consumer<String> onToken) {
+        if (!(chatClient instanceof StreamingChatClient streamingClient)) {
+            String reply = call(messages);
+            onToken.accept(reply);
+            return reply;
+        }
+        StringBuilder reply = new StringBuilder();
+        Usage usage = null;
+        for (ChatResponse chunk : streamingClient.stream(new Prompt(messages)).toIterable()) {
+            String token = chunk.getResult() != null ? chunk.getResult().getOutput().getContent() : null;
+            if (token != null && !token.isEmpty()) {
+                reply.append(token);
+                onToken.accept(token);
+            }
+            // Providers that report usage put it on the final chunk
+            Usage chunkUsage = chunk.getMetadata() != null ? chunk.getMetadata().getUsage() : null;
+            if (chunkUsage != null && chunkUsage.getTotalTokens() != null && chunkUsage.getTotalTokens() > 0) {
+                usage = chunkUsage;
+            }
+        }
+        recordUsage(usage, messages, reply.toString());
+        return reply.toString();
+    }
+
+    /**
+     * Record token usage, estimating whatever the provider didn't report.
+     */
+    private void recordUsage(Usage usage, List<Message> messages, String completion) {
+        long promptTokens = usage != null && usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        long completionTokens = usage != null && usage.getGenerationTokens() != null ? usage.getGenerationTokens() : 0;
+        if (promptTokens <= 0) {
+            for (Message message : messages) {
+                promptTokens += ContextWindowManager.estimateTokens(message.getContent());
+            }
+        }
+        if (completionTokens <= 0) {
+            completionTokens = ContextWindowManager.estimateTokens(completion);
+        }
+        chatMetrics.recordTokens(name, promptTokens, completionTokens);
+    }
+}
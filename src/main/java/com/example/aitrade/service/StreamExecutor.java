@@ -0,0 +1,96 @@
+package com.example.aitrade.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs streaming chat turns, each on its own virtual thread for the length of the completion.
+ *
+ * At most {@code max-concurrent} streams run at once; beyond that {@link #submit} refuses the
+ * stream instead of queueing it. On shutdown running streams get {@code shutdown-grace} to
+ * finish and are then interrupted, so their emitters complete rather than outliving the app.
+ */
+@Component
+public class StreamExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamExecutor.class);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("stream-", 0).factory());
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final Duration shutdownGrace;
+    private final Counter rejected;
+
+    public StreamExecutor(@Value("${app.streaming.max-concurrent:256}") int maxConcurrent,
+                          @Value("${app.streaming.shutdown-grace:10s}") Duration shutdownGrace,
+                          MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.shutdownGrace = shutdownGrace;
+        this.rejected = Counter.builder("chat.stream.rejected")
+                .description("Streaming turns refused because max-concurrent streams were running")
+                .register(meterRegistry);
+        Gauge.builder("chat.stream.active", this, streams -> streams.active()).register(meterRegistry);
+    }
+
+    /**
+     * Start {@code stream} on its own virtual thread.
+     *
+     * @throws StreamsBusyException if {@code max-concurrent} streams are already running or the
+     *         app is shutting down; {@code stream} is not run
+     */
+    public void submit(Runnable stream) {
+        if (executor.isShutdown() || !permits.tryAcquire()) {
+            rejected.increment();
+            throw new StreamsBusyException();
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    stream.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shut down between the check and execute
+            permits.release();
+            rejected.increment();
+            throw new StreamsBusyException();
+        }
+    }
+
+    int active() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Interrupting {} streams still running after {}", active(), shutdownGrace);
+            executor.shutdownNow();
+        }
+    }
+
+    public static class StreamsBusyException extends RuntimeException {
+        public StreamsBusyException() {
+            super("Too many streaming chat turns running");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ChatRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * System prompts for each user type, built once at startup.
+ *
+ * Every prompt starts with the same text ({@code app.ai-agent.system-message}), and the parts
+ * that vary by user type and extraction mode come after it. Providers that cache prompt
+ * prefixes (xAI, and Ollama's KV cache for a loaded model) can then reuse the shared part across
+ * all sessions. Prompts are engine-independent, since the router may serve a call on any engine.
+ */
+@Component
+public class SystemPrompts {
+
+    private static final Logger log = LoggerFactory.getLogger(SystemPrompts.class);
+
+    private final Map<ChatRequest.UserType, String> plain = new EnumMap<>(ChatRequest.UserType.class);
+    private final Map<ChatRequest.UserType, String> combined = new EnumMap<>(ChatRequest.UserType.class);
+
+    public SystemPrompts(@Value("${app.ai-agent.system-message}") String systemMessage,
+                         CombinedReplyParser combinedReplyParser) {
+        // Stripped so the YAML block's trailing newline doesn't leak into the joint
+        String shared = systemMessage.strip();
+        for (ChatRequest.UserType userType : ChatRequest.UserType.values()) {
+            String userTypeLine = "\n\nCurrent user type: " + userType.name();
+            plain.put(userType, shared + userTypeLine);
+            combined.put(userType, shared + combinedReplyParser.instructionsFor(userType) + userTypeLine);
+        }
+        log.info("Compiled {} system prompts sharing a {}-char prefix", plain.size() + combined.size(), shared.length());
+    }
+
+    /**
+     * Prompt for a reply on its own.
+     */
+    public String plain(ChatRequest.UserType userType) {
+        return plain.get(userType);
+    }
+
+    /**
+     * Prompt for a reply with extracted fields in one structured completion.
+     */
+    public String combined(ChatRequest.UserType userType) {
+        return combined.get(userType);
+    }
+}
@@ -0,0 +1,410 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ServiceRequest;
+import com.example.aitrade.model.Tradesperson;
+import com.example.aitrade.model.TradespersonMatch;
+import com.example.aitrade.repository.TradespersonRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory matching of customer service requests to tradesperson profiles.
+ *
+ * Profiles are indexed by the {@link ServiceRequest.ServiceType}s their skills cover and,
+ * within each type, by a 10 km grid over the places they serve. A query walks grid rings
+ * outward from the job and stops once no unvisited cell can beat the current K-th best, so
+ * its cost depends on local density rather than the total number of profiles. A request whose
+ * location can't be placed gets no matches rather than a scan of every profile of its type;
+ * any UK postcode can be placed, so the assistant asking for one is the way forward.
+ *
+ * Ranking is by score, lower is better: distance in km plus fixed km-equivalent penalties
+ * for availability (tripled for urgent or emergency jobs), qualification and experience.
+ * {@link #upsert} and {@link #remove} update the index in place.
+ */
+@Component
+public class TradespersonMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(TradespersonMatcher.class);
+
+    // Equirectangular projection at a fixed UK latitude; accurate to a few percent across GB
+    private static final double KM_PER_DEGREE_LAT = 110.574;
+    private static final double KM_PER_DEGREE_LON = 111.320 * Math.cos(Math.toRadians(54.0));
+    private static final double CELL_KM = 10.0;
+
+    private static final double PENALTY_BUSY = 60;
+    private static final double PENALTY_AVAILABILITY_UNKNOWN = 20;
+    private static final double URGENT_AVAILABILITY_FACTOR = 3;
+    private static final double PENALTY_NOT_QUALIFIED = 15;
+    private static final double PENALTY_QUALIFICATION_UNKNOWN = 10;
+
+    private static final Map<ServiceRequest.ServiceType, List<String>> SKILL_KEYWORDS = Map.of(
+            ServiceRequest.ServiceType.PLUMBING,
+            List.of("plumb", "boiler", "pipe", "leak", "drain", "heating", "bathroom", "toilet", "tap"),
+            ServiceRequest.ServiceType.ELECTRICAL,
+            List.of("electric", "wiring", "rewir", "socket", "fuse", "lighting", "consumer unit"),
+            ServiceRequest.ServiceType.PAINTING,
+            List.of("paint", "decorat", "wallpaper", "plaster"),
+            ServiceRequest.ServiceType.CARPENTRY,
+            List.of("carpent", "joiner", "wood", "cabinet", "door", "floor"),
+            ServiceRequest.ServiceType.GARDENING,
+            List.of("garden", "landscap", "lawn", "hedge", "tree", "fenc"));
+
+    private final TradespersonRepository tradespersonRepository;
+    private final UkPlaces places = UkPlaces.load();
+    private final int defaultLimit;
+    private final double maxDistanceKm;
+
+    private final Map<String, Indexed> byId = new ConcurrentHashMap<>();
+    // Inverted index: service type -> grid cell -> profiles
+    private final Map<ServiceRequest.ServiceType, Map<Long, Set<Indexed>>> byCell = new EnumMap<>(ServiceRequest.ServiceType.class);
+
+    private final Timer queryTimer;
+    private final Counter unplaced;
+
+    public TradespersonMatcher(TradespersonRepository tradespersonRepository,
+                               @Value("${app.matching.limit:5}") int defaultLimit,
+                               @Value("${app.matching.max-distance-km:80}") double maxDistanceKm,
+                               MeterRegistry meterRegistry) {
+        this.tradespersonRepository = tradespersonRepository;
+        this.defaultLimit = defaultLimit;
+        this.maxDistanceKm = maxDistanceKm;
+        for (ServiceRequest.ServiceType type : ServiceRequest.ServiceType.values()) {
+            byCell.put(type, new ConcurrentHashMap<>());
+        }
+
+        this.queryTimer = Timer.builder("chat.matching.query")
+                .description("Time to rank tradespeople for one service request")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.unplaced = Counter.builder("chat.matching.unplaced")
+                .description("Match requests answered with no matches because their location could not be placed")
+                .register(meterRegistry);
+        Gauge.builder("chat.matching.profiles", byId, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Index the profiles already in the database; later rows for the same tradesperson win.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadProfiles() {
+        if (tradespersonRepository == null) {
+            return;
+        }
+        List<Tradesperson> stored = tradespersonRepository.findAll(Sort.by("id"));
+        stored.forEach(this::upsert);
+        log.info("Indexed {} tradesperson profiles for matching", byId.size());
+    }
+
+    public int defaultLimit() {
+        return defaultLimit;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Add a profile, or replace the indexed profile with the same tradesperson id.
+     */
+    public void upsert(Tradesperson profile) {
+        Indexed next = index(profile);
+        byId.compute(profile.getTradespersonId(), (id, previous) -> {
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(next);
+            return next;
+        });
+    }
+
+    public void remove(String tradespersonId) {
+        byId.computeIfPresent(tradespersonId, (id, previous) -> {
+            unlink(previous);
+            return null;
+        });
+    }
+
+    /**
+     * @return up to {@code limit} profiles covering the request's service type and serving
+     *         within {@code max-distance-km} of its location, best first; empty if the location
+     *         is missing or can't be placed
+     */
+    public List<TradespersonMatch> match(ServiceRequest request, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        UkPlaces.Place place = places.locate(request.location());
+        if (place == null) {
+            unplaced.increment();
+            log.debug("Cannot place location '{}', no matches until one is given", request.location());
+            return List.of();
+        }
+        long start = System.nanoTime();
+        try {
+            ServiceRequest.ServiceType type = request.serviceType() != null
+                    ? request.serviceType() : ServiceRequest.ServiceType.OTHER;
+            boolean urgent = request.urgency() == ServiceRequest.Urgency.HIGH
+                    || Boolean.TRUE.equals(request.isEmergency());
+
+            // Max-heap on score, so the head is the current K-th best
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1,
+                    Comparator.comparingDouble(Candidate::score).reversed());
+            searchGrid(type, x(place.longitude()), y(place.latitude()), urgent, limit, top);
+
+            List<Candidate> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.comparingDouble(Candidate::score));
+            List<TradespersonMatch> matches = new ArrayList<>(ranked.size());
+            for (Candidate candidate : ranked) {
+                matches.add(candidate.toMatch());
+            }
+            return matches;
+        } finally {
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void searchGrid(ServiceRequest.ServiceType type, double x, double y, boolean urgent,
+                            int limit, PriorityQueue<Candidate> top) {
+        Map<Long, Set<Indexed>> cells = byCell.get(type);
+        long cx = cell(x);
+        long cy = cell(y);
+        int maxRing = (int) Math.ceil(maxDistanceKm / CELL_KM) + 1;
+        Set<String> seen = new HashSet<>();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Every point in ring r is at least (r - 1) cells away; scores are never below distance
+            double ringDistance = Math.max(0, ring - 1) * CELL_KM;
+            if (ringDistance > maxDistanceKm || (top.size() == limit && ringDistance >= top.peek().score())) {
+                return;
+            }
+            for (long i = cx - ring; i <= cx + ring; i++) {
+                // Edge columns take the whole column, the rest only the top and bottom cells
+                long step = Math.abs(i - cx) == ring ? 1 : 2L * ring;
+                for (long j = cy - ring; j <= cy + ring; j += step) {
+                    Set<Indexed> bucket = cells.get(key(i, j));
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (Indexed indexed : bucket) {
+                        if (!seen.add(indexed.id())) {
+                            continue;
+                        }
+                        double distance = indexed.distanceTo(x, y);
+                        if (distance <= maxDistanceKm) {
+                            offer(top, limit, new Candidate(indexed, distance, distance + indexed.penalty(urgent)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void offer(PriorityQueue<Candidate> top, int limit, Candidate candidate) {
+        if (top.size() < limit) {
+            top.add(candidate);
+        } else if (candidate.score() < top.peek().score()) {
+            top.poll();
+            top.add(candidate);
+        }
+    }
+
+    private Indexed index(Tradesperson profile) {
+        List<String> skills = split(profile.getTradeSkills());
+        List<String> areas = split(profile.getServiceAreas());
+
+        Set<ServiceRequest.ServiceType> types = EnumSet.noneOf(ServiceRequest.ServiceType.class);
+        for (String skill : skills) {
+            String lower = skill.toLowerCase(Locale.ROOT);
+            SKILL_KEYWORDS.forEach((type, keywords) -> {
+                if (keywords.stream().anyMatch(lower::contains)) {
+                    types.add(type);
+                }
+            });
+        }
+        if (types.isEmpty()) {
+            types.add(ServiceRequest.ServiceType.OTHER);
+        }
+
+        Set<UkPlaces.Place> served = new HashSet<>();
+        for (String area : areas) {
+            UkPlaces.Place place = places.locate(area);
+            if (place != null) {
+                served.add(place);
+            }
+        }
+        double[] xs = new double[served.size()];
+        double[] ys = new double[served.size()];
+        int n = 0;
+        for (UkPlaces.Place place : served) {
+            xs[n] = x(place.longitude());
+            ys[n] = y(place.latitude());
+            n++;
+        }
+        return new Indexed(profile.getTradespersonId(), profile, skills, areas, types, xs, ys);
+    }
+
+    private void link(Indexed indexed) {
+        for (ServiceRequest.ServiceType type : indexed.types()) {
+            for (long cellKey : indexed.cellKeys()) {
+                byCell.get(type).computeIfAbsent(cellKey, key -> ConcurrentHashMap.newKeySet()).add(indexed);
+            }
+        }
+    }
+
+    private void unlink(Indexed indexed) {
+        for (ServiceRequest.ServiceType type : indexed.types()) {
+            for (long cellKey : indexed.cellKeys()) {
+                byCell.get(type).computeIfPresent(cellKey, (key, bucket) -> {
+                    bucket.remove(indexed);
+                    return bucket.isEmpty() ? null : bucket;
+                });
+            }
+        }
+    }
+
+    /**
+     * Read a service request back out of the extracted info map served in chat responses.
+     */
+    public static ServiceRequest toServiceRequest(Map<String, Object> info) {
+        return new ServiceRequest(
+                enumValue(ServiceRequest.ServiceType.class, info.get("serviceType"), ServiceRequest.ServiceType.OTHER),
+                enumValue(ServiceRequest.Urgency.class, info.get("urgency"), ServiceRequest.Urgency.UNKNOWN),
+                info.get("location") != null ? info.get("location").toString() : null,
+                info.get("budget") != null ? info.get("budget").toString() : null,
+                info.get("isEmergency") instanceof Boolean emergency ? emergency : null,
+                info.get("specificNeeds") != null ? info.get("specificNeeds").toString() : null);
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, Object value, E fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Enum.valueOf(type, value.toString().strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    private static List<String> split(String joined) {
+        if (joined == null || joined.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(joined.split(",")).map(String::strip).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static double x(double longitude) {
+        return longitude * KM_PER_DEGREE_LON;
+    }
+
+    private static double y(double latitude) {
+        return latitude * KM_PER_DEGREE_LAT;
+    }
+
+    private static long cell(double km) {
+        return (long) Math.floor(km / CELL_KM);
+    }
+
+    private static long key(long cx, long cy) {
+        return (cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * A profile as indexed; identity-based equality so a replaced profile is unlinked exactly.
+     */
+    private static final class Indexed {
+        private final String id;
+        private final Tradesperson profile;
+        private final List<String> skills;
+        private final List<String> areas;
+        private final Set<ServiceRequest.ServiceType> types;
+        private final double[] xs;
+        private final double[] ys;
+        private final double basePenalty;
+        private final double availabilityPenalty;
+
+        Indexed(String id, Tradesperson profile, List<String> skills, List<String> areas,
+                Set<ServiceRequest.ServiceType> types, double[] xs, double[] ys) {
+            this.id = id;
+            this.profile = profile;
+            this.skills = skills;
+            this.areas = areas;
+            this.types = types;
+            this.xs = xs;
+            this.ys = ys;
+            this.availabilityPenalty = switch (profile.getAvailability() == null ? "" : profile.getAvailability()) {
+                case "AVAILABLE" -> 0;
+                case "BUSY" -> PENALTY_BUSY;
+                default -> PENALTY_AVAILABILITY_UNKNOWN;
+            };
+            double qualification = profile.getQualified() == null ? PENALTY_QUALIFICATION_UNKNOWN
+                    : profile.getQualified() ? 0 : PENALTY_NOT_QUALIFIED;
+            double experience = switch (profile.getExperienceLevel() == null ? "" : profile.getExperienceLevel()) {
+                case "EXPERT" -> 0;
+                case "INTERMEDIATE" -> 5;
+                case "BEGINNER" -> 15;
+                default -> 10;
+            };
+            this.basePenalty = qualification + experience;
+        }
+
+        String id() {
+            return id;
+        }
+
+        Set<ServiceRequest.ServiceType> types() {
+            return types;
+        }
+
+        double penalty(boolean urgent) {
+            return basePenalty + availabilityPenalty * (urgent ? URGENT_AVAILABILITY_FACTOR : 1);
+        }
+
+        double distanceTo(double x, double y) {
+            double best = Double.MAX_VALUE;
+            for (int i = 0; i < xs.length; i++) {
+                best = Math.min(best, Math.hypot(xs[i] - x, ys[i] - y));
+            }
+            return best;
+        }
+
+        Set<Long> cellKeys() {
+            Set<Long> keys = new HashSet<>();
+            for (int i = 0; i < xs.length; i++) {
+                keys.add(key(cell(xs[i]), cell(ys[i])));
+            }
+            return keys;
+        }
+    }
+
+    private record Candidate(Indexed indexed, double distanceKm, double score) {
+        TradespersonMatch toMatch() {
+            Tradesperson profile = indexed.profile;
+            return new TradespersonMatch(indexed.id, Math.round(distanceKm * 10) / 10.0,
+                    score, indexed.skills, indexed.areas, profile.getAvailability(),
+                    profile.getExperienceLevel(), profile.getQualified());
+        }
+    }
+}
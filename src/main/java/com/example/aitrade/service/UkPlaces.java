@@ -0,0 +1,87 @@
+package com.example.aitrade.service;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Small offline gazetteer that turns free-text locations ("Leeds", "LS6 2AB", "north London")
+ * into approximate coordinates, from {@code geo/uk-places.csv}.
+ *
+ * A postcode's area letters win over a town name; text matching neither is unknown.
+ */
+final class UkPlaces {
+
+    // Outward code: area letters, then a district digit
+    private static final Pattern POSTCODE = Pattern.compile("\\b([A-Z]{1,2})[0-9][0-9A-Z]?\\b");
+
+    record Place(String name, double latitude, double longitude) {
+    }
+
+    private final Map<String, Place> byPostcodeArea = new HashMap<>();
+    private final List<Place> byName = new ArrayList<>();
+
+    static UkPlaces load() {
+        UkPlaces places = new UkPlaces();
+        ClassPathResource resource = new ClassPathResource("geo/uk-places.csv");
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                Place place = new Place(normalise(fields[0]).strip(),
+                        Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+                places.byName.add(place);
+                for (String area : fields[1].split(" ")) {
+                    if (!area.isBlank()) {
+                        places.byPostcodeArea.put(area, place);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + resource.getPath(), e);
+        }
+        return places;
+    }
+
+    /**
+     * @return the place the text refers to, or null if it can't be placed
+     */
+    Place locate(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        Matcher postcode = POSTCODE.matcher(text.toUpperCase(Locale.ROOT));
+        while (postcode.find()) {
+            Place place = byPostcodeArea.get(postcode.group(1));
+            if (place != null) {
+                return place;
+            }
+        }
+        String padded = " " + normalise(text) + " ";
+        for (Place place : byName) {
+            if (padded.contains(" " + place.name() + " ")) {
+                return place;
+            }
+        }
+        return null;
+    }
+
+    private static String normalise(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^a-z]+", " ");
+    }
+}
@@ -1,87 +1,221 @@
 package com.example.aitrade.service;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-
+import org.springframework.ai.chat.messages.Message;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-@Service
-@ConditionalOnProperty(name = "app.active-ai-engine", havingValue = "grok")
-public class XaiChatService {
+/**
+ * xAI (grok) engine over the OpenAI-compatible chat completions API; created by
+ * {@link com.example.aitrade.config.ChatConfig}.
+ */
+public class XaiChatService implements ChatEngine {
 
     private static final Logger log = LoggerFactory.getLogger(XaiChatService.class);
 
-    @Value("${XAI_API_KEY}")
-    private String apiKey;
-
-    @Value("${XAI_BASE_URL}")
-    private String baseUrl;
+    private static final int MAX_ERROR_BODY_BYTES = 512;
 
-    @Value("${XAI_MODEL}")
-    private String model;
+    private final String model;
+    private final URI completionsUri;
+    private final String authorization;
+    private final Duration readTimeout;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // One client for the whole app: it pools keep-alive connections and negotiates HTTP/2
+    private final HttpClient httpClient;
+    // The JDK client has no connection limit of its own, so requests in flight are capped here
+    private final Semaphore connections;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChatMetrics chatMetrics;
+
+    /**
+     * @param maxConnections requests in flight at once, and so HTTP/1.1 connections open at once;
+     *                       callers beyond it wait up to {@code readTimeout} for a slot
+     */
+    public XaiChatService(String apiKey, String baseUrl, String model, Duration connectTimeout,
+                          Duration readTimeout, int maxConnections, ChatMetrics chatMetrics) {
+        this.model = model;
+        this.chatMetrics = chatMetrics;
+        this.completionsUri = URI.create(baseUrl.replaceAll("/+$", "") + "/chat/completions");
+        this.authorization = "Bearer " + apiKey;
+        this.readTimeout = readTimeout;
+        this.connections = new Semaphore(maxConnections, true);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        log.info("xAI client targeting {} (connect timeout {}, read timeout {}, max connections {})",
+                completionsUri, connectTimeout, readTimeout, maxConnections);
+    }
+
+    @Override
+    public String name() {
+        return "grok";
+    }
+
+    @Override
+    public String call(List<Message> messages) throws IOException, InterruptedException {
+        return callXaiApi(messages);
+    }
+
+    @Override
+    public String stream(List<Message> messages, Consumer<String> onToken) throws IOException, InterruptedException {
+        return streamXaiApi(messages, onToken);
+    }
+
+    public String callXaiApi(String message) throws IOException, InterruptedException {
+        return send(List.of(new XaiMessage("user", message)));
+    }
+
+    public String callXaiApi(List<Message> messages) throws IOException, InterruptedException {
+        return send(toXaiMessages(messages));
+    }
 
-    public String callXaiApi(String message) {
+    /**
+     * Stream a completion, passing each content delta to {@code onToken}. Returns the full reply.
+     */
+    public String streamXaiApi(List<Message> messages, Consumer<String> onToken) throws IOException, InterruptedException {
+        log.debug("Streaming request to: {}", completionsUri);
+
+        acquireConnection();
         try {
-            // Create request payload
-            XaiRequest request = new XaiRequest();
-            request.model = model;
-            request.messages = List.of(new XaiMessage("user", message));
-            request.temperature = 0.7;
-            request.stream = false;
-
-            // Create headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Content-Type", "application/json");
-            headers.set("Authorization", "Bearer " + apiKey);
-
-            // Create HTTP entity
-            String requestBody = objectMapper.writeValueAsString(request);
-            HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-
-            log.info("Calling xAI API at: {}/chat/completions", baseUrl);
-            log.debug("Request payload: {}", requestBody);
-
-            // Make API call - using the exact URL that works in your curl
-            String apiUrl = "https://api.x.ai/v1/chat/completions";
-            log.info("Making request to: {}", apiUrl);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                apiUrl,
-                HttpMethod.POST,
-                entity,
-                String.class
-            );
-
-            log.debug("xAI API response: {}", response.getBody());
-
-            // Parse response
-            Map<String, Object> responseMap = objectMapper.readValue(response.getBody(), Map.class);
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) responseMap.get("choices");
-            if (!choices.isEmpty()) {
-                Map<String, Object> message1 = (Map<String, Object>) choices.get(0).get("message");
-                return (String) message1.get("content");
+            return readStream(httpClient.send(
+                    newRequest(toXaiMessages(messages), true), HttpResponse.BodyHandlers.ofLines()), onToken);
+        } finally {
+            connections.release();
+        }
+    }
+
+    private String readStream(HttpResponse<Stream<String>> response, Consumer<String> onToken) throws IOException {
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() >= 400) {
+                throw new IOException("xAI API returned HTTP " + response.statusCode());
+            }
+            StringBuilder reply = new StringBuilder();
+            Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                String line = it.next();
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if ("[DONE]".equals(data)) {
+                    break;
+                }
+                JsonNode chunk = objectMapper.readTree(data);
+                // Sent on a final chunk with no choices because the request asks for include_usage
+                recordUsage(chunk.path("usage"));
+                JsonNode content = chunk.path("choices").path(0).path("delta").path("content");
+                if (content.isTextual() && !content.textValue().isEmpty()) {
+                    reply.append(content.textValue());
+                    onToken.accept(content.textValue());
+                }
             }
+            if (reply.isEmpty()) {
+                throw new IOException("xAI stream ended without content");
+            }
+            return reply.toString();
+        }
+    }
+
+    private static List<XaiMessage> toXaiMessages(List<Message> messages) {
+        List<XaiMessage> xaiMessages = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            xaiMessages.add(new XaiMessage(message.getMessageType().getValue(), message.getContent()));
+        }
+        return xaiMessages;
+    }
+
+    /**
+     * Failures, including a completion without content, are thrown rather than returned as text
+     * so callers can tell them apart from a reply (and tag their metrics accordingly).
+     */
+    private String send(List<XaiMessage> messages) throws IOException, InterruptedException {
+        log.debug("Making request to: {}", completionsUri);
 
-            return "Sorry, I couldn't generate a response.";
+        HttpResponse<byte[]> response;
+        acquireConnection();
+        try {
+            response = httpClient.send(newRequest(messages, false), HttpResponse.BodyHandlers.ofByteArray());
+        } finally {
+            connections.release();
+        }
+        if (response.statusCode() >= 400) {
+            throw new IOException("xAI API returned HTTP " + response.statusCode() + ": "
+                    + errorBody(response.body()));
+        }
 
-        } catch (Exception e) {
-            log.error("Error calling xAI API", e);
-            return "Error: " + e.getMessage();
+        // Payloads are captured (sampled, capped) by PayloadLogger, not here
+        // Parse response
+        JsonNode root = objectMapper.readTree(response.body());
+        recordUsage(root.path("usage"));
+        JsonNode content = root.path("choices").path(0).path("message").path("content");
+        if (!content.isTextual()) {
+            throw new IOException("xAI API returned no completion: " + errorBody(response.body()));
         }
+        return content.textValue();
+    }
+
+    private void acquireConnection() throws IOException, InterruptedException {
+        if (!connections.tryAcquire(readTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IOException("No xAI connection free within " + readTimeout);
+        }
+    }
+
+    private void recordUsage(JsonNode usage) {
+        if (usage.isObject()) {
+            chatMetrics.recordTokens("grok", usage.path("prompt_tokens").asLong(),
+                    usage.path("completion_tokens").asLong());
+            // Part of prompt_tokens that hit xAI's prompt cache (the shared system prompt prefix)
+            JsonNode cached = usage.path("prompt_tokens_details").path("cached_tokens");
+            if (cached.isNumber()) {
+                chatMetrics.recordCachedTokens("grok", cached.asLong());
+            }
+        }
+    }
+
+    /**
+     * Error bodies go into exception messages and from there into logs, so only their start is kept.
+     */
+    private static String errorBody(byte[] body) {
+        return new String(body, 0, Math.min(body.length, MAX_ERROR_BODY_BYTES), StandardCharsets.UTF_8);
+    }
+
+    private HttpRequest newRequest(List<XaiMessage> messages, boolean stream) throws IOException {
+        XaiRequest request = new XaiRequest();
+        request.model = model;
+        request.messages = messages;
+        request.temperature = 0.7;
+        request.stream = stream;
+        request.streamOptions = stream ? Map.of("include_usage", true) : null;
+
+        byte[] requestBody = objectMapper.writeValueAsBytes(request);
+
+        return HttpRequest.newBuilder(completionsUri)
+                .timeout(readTimeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", stream ? "text/event-stream" : "application/json")
+                .header("Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
+                .build();
     }
 
     // DTOs for xAI API
@@ -90,6 +224,9 @@ public class XaiChatService {
         public List<XaiMessage> messages;
         public double temperature;
         public boolean stream;
+        @JsonProperty("stream_options")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Map<String, Object> streamOptions;
     }
 
     public static class XaiMessage {
@@ -101,4 +238,4 @@ public class XaiChatService {
             this.content = content;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.example.aitrade.session;
+
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.List;
+
+/**
+ * Storage for per-session conversation history.
+ *
+ * Implementations decide where history lives and when it is evicted; callers only
+ * ever see immutable snapshots and append whole messages.
+ */
+public interface ConversationStore {
+
+    /**
+     * Snapshot of the history for a session, or an empty list if the session is unknown
+     * or has been evicted.
+     */
+    List<Message> getHistory(String sessionId);
+
+    /**
+     * Append messages to a session, creating it if needed.
+     */
+    void append(String sessionId, List<Message> messages);
+
+    /**
+     * Rolling summary of older turns for a session, or {@link ConversationSummary#EMPTY}.
+     */
+    ConversationSummary getSummary(String sessionId);
+
+    /**
+     * Replace the rolling summary of a session. Ignored if the session no longer exists.
+     */
+    void putSummary(String sessionId, ConversationSummary summary);
+
+    void remove(String sessionId);
+
+    /**
+     * Number of sessions currently held.
+     */
+    int size();
+
+    /**
+     * Approximate heap footprint of all held history, in bytes.
+     */
+    long estimatedBytes();
+}
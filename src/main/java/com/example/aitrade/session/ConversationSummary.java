@@ -0,0 +1,16 @@
+package com.example.aitrade.session;
+
+/**
+ * Rolling summary of the oldest part of a conversation.
+ *
+ * @param coveredMessages number of leading history messages folded into {@code text}
+ * @param text            truncated transcript of those messages (see ContextWindowManager)
+ */
+public record ConversationSummary(int coveredMessages, String text) {
+
+    public static final ConversationSummary EMPTY = new ConversationSummary(0, "");
+
+    public boolean isEmpty() {
+        return coveredMessages == 0 || text.isEmpty();
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.aitrade.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Heap-backed conversation store bounded by idle TTL, session count and total history bytes.
+ *
+ * Each session has its own lock, so turns of different sessions never wait on each other;
+ * only the byte total is shared, as an atomic. When a limit is exceeded, one thread evicts the
+ * least recently used sessions until the store is 5% under its limits, so the sort by access
+ * time is paid once per batch of evictions rather than on every append.
+ */
+@Component
+@ConditionalOnProperty(name = "app.conversation-store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConversationStore implements ConversationStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryConversationStore.class);
+
+    // Rough per-message overhead: object headers, role, metadata map and list slot
+    private static final int MESSAGE_OVERHEAD_BYTES = 96;
+
+    private final int maxSessions;
+    private final long maxTotalBytes;
+    private final long idleTtlNanos;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>(256);
+    private final AtomicLong totalBytes = new AtomicLong();
+    // Held while trimming to the limits; appends that find it taken leave the trim to its holder
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expiredEvictions;
+    private final Counter sizeEvictions;
+    private final Counter bytesEvictions;
+
+    public InMemoryConversationStore(
+            @Value("${app.conversation-store.max-sessions:10000}") int maxSessions,
+            @Value("${app.conversation-store.max-total-bytes:134217728}") long maxTotalBytes,
+            @Value("${app.conversation-store.idle-ttl:30m}") Duration idleTtl,
+            MeterRegistry meterRegistry) {
+        this.maxSessions = maxSessions;
+        this.maxTotalBytes = maxTotalBytes;
+        this.idleTtlNanos = idleTtl.toNanos();
+
+        this.hits = Counter.builder("chat.sessions.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.sessions.requests").tag("result", "miss").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("chat.sessions.evictions").tag("cause", "expired").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("chat.sessions.evictions").tag("cause", "size").register(meterRegistry);
+        this.bytesEvictions = Counter.builder("chat.sessions.evictions").tag("cause", "bytes").register(meterRegistry);
+        Gauge.builder("chat.sessions.active", this, InMemoryConversationStore::size).register(meterRegistry);
+        Gauge.builder("chat.sessions.bytes", this, InMemoryConversationStore::estimatedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("In-memory conversation store: maxSessions={}, maxTotalBytes={}, idleTtl={}",
+                maxSessions, maxTotalBytes, idleTtl);
+    }
+
+    @Override
+    public List<Message> getHistory(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session != null) {
+            long now = System.nanoTime();
+            session.lock.lock();
+            try {
+                if (!session.removed && !isExpired(session, now)) {
+                    hits.increment();
+                    session.lastAccessNanos = now;
+                    return List.copyOf(session.messages);
+                }
+            } finally {
+                session.lock.unlock();
+            }
+            evict(sessionId, session, expiredEvictions);
+        }
+        misses.increment();
+        return List.of();
+    }
+
+    @Override
+    public void append(String sessionId, List<Message> messages) {
+        long now = System.nanoTime();
+        while (!tryAppend(sessionId, messages, now)) {
+            // Evicted between lookup and lock; the next lookup creates a fresh session
+        }
+        enforceLimits(sessionId);
+    }
+
+    private boolean tryAppend(String sessionId, List<Message> messages, long now) {
+        Session session = sessions.computeIfAbsent(sessionId, id -> new Session(now));
+        session.lock.lock();
+        try {
+            if (session.removed) {
+                sessions.remove(sessionId, session);
+                return false;
+            }
+            if (isExpired(session, now)) {
+                evict(sessionId, session, expiredEvictions);
+                return false;
+            }
+            long added = 0;
+            for (Message message : messages) {
+                session.messages.add(message);
+                added += estimateBytes(message);
+            }
+            session.bytes += added;
+            session.lastAccessNanos = now;
+            totalBytes.addAndGet(added);
+            return true;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Override
+    public ConversationSummary getSummary(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return ConversationSummary.EMPTY;
+        }
+        session.lock.lock();
+        try {
+            if (session.removed) {
+                return ConversationSummary.EMPTY;
+            }
+            session.lastAccessNanos = System.nanoTime();
+            return session.summary;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Override
+    public void putSummary(String sessionId, ConversationSummary summary) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        session.lock.lock();
+        try {
+            if (session.removed) {
+                return;
+            }
+            long delta = 2L * (summary.text().length() - session.summary.text().length());
+            session.summary = summary;
+            session.lastAccessNanos = System.nanoTime();
+            session.bytes += delta;
+            totalBytes.addAndGet(delta);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            discard(session);
+        }
+    }
+
+    @Override
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * Drop idle sessions that nobody has touched since the last sweep.
+     */
+    @Scheduled(fixedDelayString = "${app.conversation-store.sweep-interval:60s}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (isExpired(entry.getValue(), now) && evict(entry.getKey(), entry.getValue(), expiredEvictions)) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.debug("Evicted {} idle sessions, {} remaining", removed, sessions.size());
+        }
+    }
+
+    private void enforceLimits(String protectedSessionId) {
+        if (!overLimits(maxSessions, maxTotalBytes) || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int sessionTarget = maxSessions - maxSessions / 20;
+            long bytesTarget = maxTotalBytes - maxTotalBytes / 20;
+            // Access times are copied first: sorting on values other threads keep updating
+            // can break the comparator contract
+            List<Candidate> candidates = new ArrayList<>(sessions.size());
+            sessions.forEach((id, session) -> candidates.add(new Candidate(id, session, session.lastAccessNanos)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccessNanos));
+            for (Candidate candidate : candidates) {
+                if (!overLimits(sessionTarget, bytesTarget)) {
+                    break;
+                }
+                if (candidate.id().equals(protectedSessionId)) {
+                    continue;
+                }
+                Counter cause = sessions.size() > sessionTarget ? sizeEvictions : bytesEvictions;
+                if (evict(candidate.id(), candidate.session(), cause)) {
+                    log.debug("Evicted session {} ({} bytes) to stay within limits",
+                            candidate.id(), candidate.session().bytes);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean overLimits(int sessionLimit, long bytesLimit) {
+        return sessions.size() > sessionLimit || totalBytes.get() > bytesLimit;
+    }
+
+    /**
+     * @return false if another thread already removed the session
+     */
+    private boolean evict(String sessionId, Session session, Counter cause) {
+        if (!discard(session)) {
+            return false;
+        }
+        sessions.remove(sessionId, session);
+        cause.increment();
+        return true;
+    }
+
+    /**
+     * Mark a session removed and release its bytes, once.
+     */
+    private boolean discard(Session session) {
+        session.lock.lock();
+        try {
+            if (session.removed) {
+                return false;
+            }
+            session.removed = true;
+            totalBytes.addAndGet(-session.bytes);
+            return true;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.lastAccessNanos > idleTtlNanos;
+    }
+
+    static long estimateBytes(Message message) {
+        String content = message.getContent();
+        return MESSAGE_OVERHEAD_BYTES + (content != null ? 2L * content.length() : 0L);
+    }
+
+    private record Candidate(String id, Session session, long lastAccessNanos) {
+    }
+
+    private static final class Session {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock, except lastAccessNanos which the sweep and eviction read without it
+        private final List<Message> messages = new ArrayList<>();
+        private ConversationSummary summary = ConversationSummary.EMPTY;
+        private long bytes;
+        private volatile long lastAccessNanos;
+        private boolean removed;
+
+        private Session(long now) {
+            this.lastAccessNanos = now;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.aitrade.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Conversation store shared by every replica through the application's JDBC datasource.
+ *
+ * Each {@link #append} inserts one row holding the new messages in {@link MessageCodec} form;
+ * history is never rewritten. Every node keeps a near-cache of the sessions it has served and
+ * revalidates it on read by fetching only rows from its last known sequence number on, so
+ * turns that land on another replica are picked up with a single indexed query. Two nodes
+ * appending to the same session at once collide on the primary key, and the loser catches up
+ * and retries.
+ *
+ * {@link #size()} and {@link #estimatedBytes()} describe this node's near-cache.
+ *
+ * The schema ({@code db/conversation-store.sql}) targets H2 and PostgreSQL; other databases
+ * need their own script (MySQL, for one, has no BYTEA).
+ */
+@Component
+@ConditionalOnProperty(name = "app.conversation-store.type", havingValue = "jdbc")
+public class JdbcConversationStore implements ConversationStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcConversationStore.class);
+
+    private static final int MAX_APPEND_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbc;
+    private final long idleTtlMillis;
+    private final Cache<String, Cached> nearCache;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter nearHits;
+    private final Counter deltaReads;
+    private final Counter fullReads;
+    private final Counter appendConflicts;
+    private final Counter expiredEvictions;
+
+    public JdbcConversationStore(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.conversation-store.max-total-bytes:134217728}") long nearCacheBytes,
+            @Value("${app.conversation-store.idle-ttl:30m}") Duration idleTtl,
+            @Value("${app.conversation-store.jdbc.initialize-schema:true}") boolean initializeSchema,
+            @Value("${app.conversation-store.jdbc.schema:classpath:db/conversation-store.sql}") Resource schema,
+            MeterRegistry meterRegistry) {
+        this.jdbc = jdbcTemplate;
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.nearCache = Caffeine.newBuilder()
+                .maximumWeight(nearCacheBytes)
+                .weigher((String sessionId, Cached cached) -> (int) Math.min(Integer.MAX_VALUE, cached.bytes))
+                .expireAfterAccess(idleTtl)
+                .build();
+
+        if (initializeSchema) {
+            new ResourceDatabasePopulator(schema).execute(jdbcTemplate.getDataSource());
+        }
+
+        this.hits = Counter.builder("chat.sessions.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("chat.sessions.requests").tag("result", "miss").register(meterRegistry);
+        this.nearHits = Counter.builder("chat.sessions.near.cache").tag("result", "current").register(meterRegistry);
+        this.deltaReads = Counter.builder("chat.sessions.near.cache").tag("result", "delta").register(meterRegistry);
+        this.fullReads = Counter.builder("chat.sessions.near.cache").tag("result", "reload").register(meterRegistry);
+        this.appendConflicts = Counter.builder("chat.sessions.append.conflicts")
+                .description("Appends that raced another replica and were retried")
+                .register(meterRegistry);
+        this.expiredEvictions = Counter.builder("chat.sessions.evictions").tag("cause", "expired").register(meterRegistry);
+        Gauge.builder("chat.sessions.active", this, JdbcConversationStore::size).register(meterRegistry);
+        Gauge.builder("chat.sessions.bytes", this, JdbcConversationStore::estimatedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("JDBC conversation store: nearCacheBytes={}, idleTtl={}", nearCacheBytes, idleTtl);
+    }
+
+    @Override
+    public List<Message> getHistory(String sessionId) {
+        Cached cached = current(sessionId);
+        if (cached == null) {
+            misses.increment();
+            return List.of();
+        }
+        hits.increment();
+        return cached.messages;
+    }
+
+    @Override
+    public void append(String sessionId, List<Message> messages) {
+        byte[] payload = MessageCodec.encode(messages);
+        for (int attempt = 1; ; attempt++) {
+            Cached cached = nearCache.getIfPresent(sessionId);
+            if (cached == null) {
+                cached = loadFull(sessionId);
+            }
+            if (cached != null && isExpired(cached)) {
+                remove(sessionId);
+                expiredEvictions.increment();
+                cached = null;
+            }
+            int seq = cached != null ? cached.lastSeq + 1 : 0;
+            long now = System.currentTimeMillis();
+            try {
+                jdbc.update("INSERT INTO conversation_message (session_id, seq, payload, created_at) VALUES (?, ?, ?, ?)",
+                        sessionId, seq, payload, new Timestamp(now));
+            } catch (DuplicateKeyException e) {
+                // Another replica appended first; reload and go again
+                appendConflicts.increment();
+                nearCache.invalidate(sessionId);
+                if (attempt == MAX_APPEND_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+            nearCache.put(sessionId, cached != null
+                    ? cached.plus(messages, seq, payload, now)
+                    : Cached.of(messages, seq, payload, now));
+            return;
+        }
+    }
+
+    @Override
+    public ConversationSummary getSummary(String sessionId) {
+        Cached cached = nearCache.getIfPresent(sessionId);
+        if (cached != null && cached.summary != null) {
+            return cached.summary;
+        }
+        List<ConversationSummary> rows = jdbc.query(
+                "SELECT covered_messages, summary_text FROM conversation_summary WHERE session_id = ?",
+                (rs, i) -> new ConversationSummary(rs.getInt(1), rs.getString(2)), sessionId);
+        ConversationSummary summary = rows.isEmpty() ? ConversationSummary.EMPTY : rows.get(0);
+        if (cached != null) {
+            nearCache.put(sessionId, cached.withSummary(summary));
+        }
+        return summary;
+    }
+
+    @Override
+    public void putSummary(String sessionId, ConversationSummary summary) {
+        // Called right after the turn's own reads, so the near-cache is current enough here
+        Cached cached = nearCache.getIfPresent(sessionId);
+        if (cached == null) {
+            cached = current(sessionId);
+        }
+        if (cached == null) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        int updated = jdbc.update(
+                "UPDATE conversation_summary SET covered_messages = ?, summary_text = ?, updated_at = ? WHERE session_id = ?",
+                summary.coveredMessages(), summary.text(), now, sessionId);
+        if (updated == 0) {
+            try {
+                jdbc.update("INSERT INTO conversation_summary (session_id, covered_messages, summary_text, updated_at) VALUES (?, ?, ?, ?)",
+                        sessionId, summary.coveredMessages(), summary.text(), now);
+            } catch (DuplicateKeyException e) {
+                jdbc.update(
+                        "UPDATE conversation_summary SET covered_messages = ?, summary_text = ?, updated_at = ? WHERE session_id = ?",
+                        summary.coveredMessages(), summary.text(), now, sessionId);
+            }
+        }
+        nearCache.put(sessionId, cached.withSummary(summary));
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        jdbc.update("DELETE FROM conversation_message WHERE session_id = ?", sessionId);
+        jdbc.update("DELETE FROM conversation_summary WHERE session_id = ?", sessionId);
+        nearCache.invalidate(sessionId);
+    }
+
+    @Override
+    public int size() {
+        return (int) nearCache.estimatedSize();
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return nearCache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Delete sessions whose newest message is older than the idle TTL. Safe to run on every
+     * replica at once.
+     *
+     * Expired sessions are looked up first and then deleted by key, rather than with a delete
+     * that selects from the table it deletes from. Only rows older than the cutoff are deleted,
+     * so a turn appended between the two steps survives as the start of a new history.
+     */
+    @Scheduled(fixedDelayString = "${app.conversation-store.sweep-interval:60s}")
+    public void evictExpired() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - idleTtlMillis);
+        List<String> expired = jdbc.queryForList("SELECT session_id FROM conversation_message "
+                + "GROUP BY session_id HAVING MAX(created_at) < ?", String.class, cutoff);
+        if (expired.isEmpty()) {
+            return;
+        }
+        List<Object[]> messageArgs = new ArrayList<>(expired.size());
+        List<Object[]> summaryArgs = new ArrayList<>(expired.size());
+        for (String sessionId : expired) {
+            messageArgs.add(new Object[] {sessionId, cutoff});
+            summaryArgs.add(new Object[] {sessionId, sessionId});
+        }
+        int removed = Arrays.stream(jdbc.batchUpdate(
+                "DELETE FROM conversation_message WHERE session_id = ? AND created_at < ?", messageArgs))
+                .filter(count -> count > 0)
+                .sum();
+        jdbc.batchUpdate("DELETE FROM conversation_summary WHERE session_id = ? AND NOT EXISTS "
+                + "(SELECT 1 FROM conversation_message WHERE session_id = ?)", summaryArgs);
+        log.debug("Deleted {} history rows of {} idle sessions", removed, expired.size());
+    }
+
+    /**
+     * Near-cache entry brought up to date with the database, or null if the session doesn't
+     * exist or has expired.
+     */
+    private Cached current(String sessionId) {
+        Cached cached = nearCache.getIfPresent(sessionId);
+        Cached fresh = cached != null ? refresh(sessionId, cached) : loadFull(sessionId);
+        if (fresh == null) {
+            nearCache.invalidate(sessionId);
+            return null;
+        }
+        if (isExpired(fresh)) {
+            remove(sessionId);
+            expiredEvictions.increment();
+            return null;
+        }
+        if (fresh != cached) {
+            nearCache.put(sessionId, fresh);
+        }
+        return fresh;
+    }
+
+    private Cached refresh(String sessionId, Cached cached) {
+        // Re-read the last row we know about too, to notice a session removed or rewritten elsewhere
+        List<Row> rows = rows(sessionId, cached.lastSeq);
+        if (rows.isEmpty() || rows.get(0).seq != cached.lastSeq || !Arrays.equals(rows.get(0).payload, cached.lastPayload)) {
+            fullReads.increment();
+            return rows.isEmpty() ? null : loadFull(sessionId);
+        }
+        if (rows.size() == 1) {
+            nearHits.increment();
+            return cached;
+        }
+        deltaReads.increment();
+        Cached updated = cached;
+        for (Row row : rows.subList(1, rows.size())) {
+            updated = updated.plus(MessageCodec.decode(row.payload), row.seq, row.payload, row.createdMillis);
+        }
+        // Another replica may have folded a newer summary
+        return updated.withSummary(null);
+    }
+
+    private Cached loadFull(String sessionId) {
+        List<Row> rows = rows(sessionId, 0);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<Message> messages = new ArrayList<>();
+        for (Row row : rows) {
+            messages.addAll(MessageCodec.decode(row.payload));
+        }
+        Row last = rows.get(rows.size() - 1);
+        return Cached.of(messages, last.seq, last.payload, last.createdMillis);
+    }
+
+    private List<Row> rows(String sessionId, int fromSeq) {
+        return jdbc.query(
+                "SELECT seq, payload, created_at FROM conversation_message WHERE session_id = ? AND seq >= ? ORDER BY seq",
+                (rs, i) -> new Row(rs.getInt(1), rs.getBytes(2), rs.getTimestamp(3).getTime()),
+                sessionId, fromSeq);
+    }
+
+    private boolean isExpired(Cached cached) {
+        return System.currentTimeMillis() - cached.lastWriteMillis > idleTtlMillis;
+    }
+
+    private record Row(int seq, byte[] payload, long createdMillis) {
+    }
+
+    /**
+     * Immutable near-cache entry; {@code summary} is null until read.
+     */
+    private record Cached(List<Message> messages, int lastSeq, byte[] lastPayload, long lastWriteMillis,
+                          ConversationSummary summary, long bytes) {
+
+        static Cached of(List<Message> messages, int lastSeq, byte[] lastPayload, long lastWriteMillis) {
+            long bytes = 0;
+            for (Message message : messages) {
+                bytes += InMemoryConversationStore.estimateBytes(message);
+            }
+            return new Cached(Collections.unmodifiableList(new ArrayList<>(messages)), lastSeq, lastPayload,
+                    lastWriteMillis, null, bytes);
+        }
+
+        Cached plus(List<Message> added, int seq, byte[] payload, long writeMillis) {
+            List<Message> combined = new ArrayList<>(messages.size() + added.size());
+            combined.addAll(messages);
+            combined.addAll(added);
+            long addedBytes = 0;
+            for (Message message : added) {
+                addedBytes += InMemoryConversationStore.estimateBytes(message);
+            }
+            return new Cached(Collections.unmodifiableList(combined), seq, payload, writeMillis, summary,
+                    bytes + addedBytes);
+        }
+
+        Cached withSummary(ConversationSummary summary) {
+            return new Cached(messages, lastSeq, lastPayload, lastWriteMillis, summary, bytes);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.aitrade.session;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.FunctionMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of a batch of messages, as stored by {@link JdbcConversationStore}.
+ *
+ * Layout: format version byte, varint message count, then per message a role byte, a varint
+ * byte length and the UTF-8 content. Message metadata is not kept.
+ */
+final class MessageCodec {
+
+    private static final int VERSION = 1;
+
+    private static final int USER = 0;
+    private static final int ASSISTANT = 1;
+    private static final int SYSTEM = 2;
+    private static final int FUNCTION = 3;
+
+    private MessageCodec() {
+    }
+
+    static byte[] encode(List<Message> messages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        writeVarint(out, messages.size());
+        for (Message message : messages) {
+            out.write(switch (message.getMessageType()) {
+                case USER -> USER;
+                case ASSISTANT -> ASSISTANT;
+                case SYSTEM -> SYSTEM;
+                case FUNCTION -> FUNCTION;
+                default -> throw new IllegalArgumentException("Cannot store message type " + message.getMessageType());
+            });
+            byte[] content = message.getContent() != null
+                    ? message.getContent().getBytes(StandardCharsets.UTF_8)
+                    : new byte[0];
+            writeVarint(out, content.length);
+            out.writeBytes(content);
+        }
+        return out.toByteArray();
+    }
+
+    static List<Message> decode(byte[] payload) {
+        int[] pos = {0};
+        int version = payload[pos[0]++];
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown message encoding version " + version);
+        }
+        int count = readVarint(payload, pos);
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int role = payload[pos[0]++];
+            int length = readVarint(payload, pos);
+            String content = new String(payload, pos[0], length, StandardCharsets.UTF_8);
+            pos[0] += length;
+            messages.add(switch (role) {
+                case USER -> new UserMessage(content);
+                case ASSISTANT -> new AssistantMessage(content);
+                case SYSTEM -> new SystemMessage(content);
+                case FUNCTION -> new FunctionMessage(content);
+                default -> throw new IllegalArgumentException("Unknown message role " + role);
+            });
+        }
+        return messages;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] in, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.aitrade.session;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes work per session while letting different sessions run in parallel.
+ *
+ * A fair lock is created on first use and dropped once no thread holds or waits for it,
+ * so the map only ever contains sessions with a turn in flight.
+ */
+@Component
+public class SessionLocks {
+
+    private final ConcurrentHashMap<String, RefCountedLock> locks = new ConcurrentHashMap<>();
+
+    public <T> T withSessionLock(String sessionId, Supplier<T> work) {
+        RefCountedLock holder = locks.compute(sessionId, (key, existing) -> {
+            RefCountedLock lock = existing != null ? existing : new RefCountedLock();
+            lock.refs++;
+            return lock;
+        });
+        holder.lock.lock();
+        try {
+            return work.get();
+        } finally {
+            holder.lock.unlock();
+            locks.computeIfPresent(sessionId, (key, existing) -> --existing.refs == 0 ? null : existing);
+        }
+    }
+
+    /**
+     * Number of sessions with a turn currently running or queued.
+     */
+    public int activeSessions() {
+        return locks.size();
+    }
+
+    private static final class RefCountedLock {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        // Only read or written inside ConcurrentHashMap.compute for this key
+        private int refs;
+    }
+}
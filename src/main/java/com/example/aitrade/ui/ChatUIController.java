@@ -3,6 +3,8 @@ package com.example.aitrade.ui;
 import com.example.aitrade.model.ChatRequest;
 import com.example.aitrade.model.ChatResponse;
 import com.example.aitrade.service.ChatService;
+import com.example.aitrade.service.RequestRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,8 +20,11 @@ public class ChatUIController {
     
     private final ChatService chatService;
     
-    public ChatUIController(ChatService chatService) {
+    private final RequestRateLimiter rateLimiter;
+    
+    public ChatUIController(ChatService chatService, RequestRateLimiter rateLimiter) {
         this.chatService = chatService;
+        this.rateLimiter = rateLimiter;
     }
     
     /**
@@ -36,15 +41,19 @@ public class ChatUIController {
      */
     @PostMapping("/api/chat/ui")
     @ResponseBody
-    public ResponseEntity<ChatResponse> processUIMessage(@Valid @RequestBody ChatUIRequest request) {
-        log.info("Processing UI message from user: {} in session: {} as {}", 
+    public ResponseEntity<ChatResponse> processUIMessage(@Valid @RequestBody ChatUIRequest request,
+                                                         HttpServletRequest httpRequest) {
+        log.debug("Processing UI message from user: {} in session: {} as {}", 
                 request.getUserId(), request.getSessionId(), request.getUserType());
+        rateLimiter.check(request.getUserType(), request.getUserId(), request.getSessionId(),
+                httpRequest.getRemoteAddr());
         
         // Convert UI request to internal ChatRequest format
         ChatRequest chatRequest = new ChatRequest();
         chatRequest.setMessage(request.getMessage());
         chatRequest.setSessionId(request.getSessionId());
         chatRequest.setUserType(request.getUserType());
+        chatRequest.setUserId(request.getUserId());
         
         // Process with existing ChatService
         ChatResponse response = chatService.processMessage(chatRequest);
@@ -52,7 +61,7 @@ public class ChatUIController {
         // Enhance response with UI-specific data
         response.setUserId(request.getUserId());
         
-        log.info("Processed UI message successfully for user: {}", request.getUserId());
+        log.debug("Processed UI message successfully for user: {}", request.getUserId());
         return ResponseEntity.ok(response);
     }
     
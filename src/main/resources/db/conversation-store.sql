@@ -0,0 +1,19 @@
+-- Shared conversation history for app.conversation-store.type=jdbc (H2 and PostgreSQL)
+
+-- One row per append; payload is a MessageCodec-encoded batch of messages
+CREATE TABLE IF NOT EXISTS conversation_message (
+    session_id VARCHAR(128) NOT NULL,
+    seq        INTEGER      NOT NULL,
+    payload    BYTEA        NOT NULL,
+    created_at TIMESTAMP    NOT NULL,
+    PRIMARY KEY (session_id, seq)
+);
+
+CREATE INDEX IF NOT EXISTS conversation_message_created_at ON conversation_message (created_at);
+
+CREATE TABLE IF NOT EXISTS conversation_summary (
+    session_id       VARCHAR(128)   NOT NULL PRIMARY KEY,
+    covered_messages INTEGER        NOT NULL,
+    summary_text     VARCHAR(65536) NOT NULL,
+    updated_at       TIMESTAMP      NOT NULL
+);
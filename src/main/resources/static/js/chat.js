@@ -183,24 +183,61 @@ class ChatApp {
 
             console.log('Sending request:', requestData);
 
-            // Call your API
-            const response = await fetch('/api/chat/ui', {
+            // Stream the reply so tokens render as soon as the engine produces them
+            const response = await fetch('/api/chat/stream', {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json',
+                    'Accept': 'text/event-stream'
                 },
                 body: JSON.stringify(requestData)
             });
 
+            if (response.status === 429) {
+                const retryAfter = response.headers.get('Retry-After') || '1';
+                this.addMessageToChat('assistant', `The assistant is busy right now. Please try again in ${retryAfter} seconds.`, null, true);
+                return;
+            }
             if (!response.ok) {
                 throw new Error(`HTTP error! status: ${response.status}`);
             }
 
-            const data = await response.json();
+            let messageDiv = null;
+            let data = null;
+            await this.readEventStream(response, (event, payload) => {
+                if (event === 'token') {
+                    if (!messageDiv) {
+                        this.showLoading(false);
+                        messageDiv = this.addMessageToChat('assistant', '');
+                    }
+                    messageDiv.querySelector('.message-bubble').textContent += payload.t;
+                    this.chatMessages.scrollTop = this.chatMessages.scrollHeight;
+                } else if (event === 'done') {
+                    data = payload;
+                }
+            });
+
+            if (!data) {
+                throw new Error('Stream ended without a final response');
+            }
             console.log('Received response:', data);
 
-            // Add AI response to chat
-            this.addMessageToChat('assistant', data.message, data);
+            if (!messageDiv) {
+                messageDiv = this.addMessageToChat('assistant', data.message, data);
+            } else {
+                // Final text is authoritative (e.g. an error message replacing a broken stream)
+                messageDiv.querySelector('.message-bubble').textContent = data.message;
+                const infoDiv = messageDiv.querySelector('.message-info');
+                infoDiv.textContent = `${infoDiv.dataset.prefix}${this.describeExtraction(data.extractedInfo)}`;
+                const entry = this.messageHistory[this.messageHistory.length - 1];
+                entry.content = data.message;
+                entry.responseData = data;
+            }
+
+            // Extraction may still be running server-side; pick it up when it lands
+            if (data.extractionPending) {
+                this.pollExtraction(data.sessionId, messageDiv);
+            }
 
         } catch (error) {
             console.error('Error sending message:', error);
@@ -210,6 +247,35 @@ class ChatApp {
         }
     }
 
+    async readEventStream(response, onEvent) {
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+
+        while (true) {
+            const { value, done } = await reader.read();
+            if (done) break;
+            buffer += decoder.decode(value, { stream: true });
+
+            const frames = buffer.split(/\r?\n\r?\n/);
+            buffer = frames.pop();
+            for (const frame of frames) {
+                let event = 'message';
+                const dataLines = [];
+                for (const line of frame.split(/\r?\n/)) {
+                    if (line.startsWith('event:')) {
+                        event = line.slice(6).trim();
+                    } else if (line.startsWith('data:')) {
+                        dataLines.push(line.slice(5));
+                    }
+                }
+                if (dataLines.length > 0) {
+                    onEvent(event, JSON.parse(dataLines.join('\n')));
+                }
+            }
+        }
+    }
+
     addMessageToChat(sender, content, responseData = null, isError = false) {
         const messageDiv = document.createElement('div');
         messageDiv.className = `message ${sender}`;
@@ -231,20 +297,9 @@ class ChatApp {
         if (sender === 'user') {
             infoDiv.textContent = `You • ${timestamp}`;
         } else {
-            let engineInfo = '';
-            if (responseData && responseData.extractedInfo) {
-                const extracted = responseData.extractedInfo;
-                const extractedKeys = Object.keys(extracted).filter(key => 
-                    extracted[key] !== null && 
-                    extracted[key] !== undefined && 
-                    key !== 'timestamp' && 
-                    key !== 'messageLength'
-                );
-                if (extractedKeys.length > 0) {
-                    engineInfo = ` • Extracted: ${extractedKeys.join(', ')}`;
-                }
-            }
-            infoDiv.textContent = `AI Assistant • ${timestamp}${engineInfo}`;
+            const engineInfo = this.describeExtraction(responseData && responseData.extractedInfo);
+            infoDiv.dataset.prefix = `AI Assistant • ${timestamp}`;
+            infoDiv.textContent = `${infoDiv.dataset.prefix}${engineInfo}`;
         }
 
         messageDiv.appendChild(bubbleDiv);
@@ -261,6 +316,40 @@ class ChatApp {
             timestamp: new Date().toISOString(),
             responseData
         });
+
+        return messageDiv;
+    }
+
+    describeExtraction(extracted) {
+        if (!extracted) return '';
+        const extractedKeys = Object.keys(extracted).filter(key => 
+            extracted[key] !== null && 
+            extracted[key] !== undefined && 
+            key !== 'timestamp' && 
+            key !== 'messageLength'
+        );
+        return extractedKeys.length > 0 ? ` • Extracted: ${extractedKeys.join(', ')}` : '';
+    }
+
+    async pollExtraction(sessionId, messageDiv, attempt = 0) {
+        if (attempt >= 15 || sessionId !== this.currentSession) return;
+
+        await new Promise(resolve => setTimeout(resolve, 1000));
+        try {
+            const response = await fetch(`/api/chat/session/${encodeURIComponent(sessionId)}/extraction`);
+            if (response.ok) {
+                const result = await response.json();
+                if (result.status === 'COMPLETE' || result.status === 'FAILED') {
+                    const infoDiv = messageDiv.querySelector('.message-info');
+                    infoDiv.textContent = `${infoDiv.dataset.prefix}${this.describeExtraction(result.extractedInfo)}`;
+                    console.log(`Extraction ${result.status.toLowerCase()}:`, result);
+                    return;
+                }
+            }
+        } catch (error) {
+            console.error('Error polling extraction:', error);
+        }
+        this.pollExtraction(sessionId, messageDiv, attempt + 1);
     }
 
     showLoading(show) {
@@ -0,0 +1,126 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.model.ChatRequest;
+import com.example.aitrade.model.ChatResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.ChatClient;
+import org.springframework.ai.chat.Generation;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Many threads sending turns to one session at once must leave each turn's user message
+ * directly followed by its reply, with none lost.
+ */
+class ChatServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TURNS_PER_THREAD = 20;
+    private static final String SESSION_ID = "shared-session";
+
+    private ChatServiceFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        // Identical concurrent turns must each reach the model, not share one reply
+        fixture = new ChatServiceFixture(new StubChatClient(), false, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    void concurrentTurnsInOneSessionAlternateUserAndAssistant() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<ChatResponse>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(threads.submit(() -> {
+                    start.await();
+                    List<ChatResponse> responses = new ArrayList<>();
+                    for (int turn = 0; turn < TURNS_PER_THREAD; turn++) {
+                        responses.add(fixture.chatService.processMessage(request("thread " + thread + " turn " + turn)));
+                    }
+                    return responses;
+                }));
+            }
+            start.countDown();
+            for (Future<List<ChatResponse>> result : results) {
+                for (ChatResponse response : result.get(60, TimeUnit.SECONDS)) {
+                    assertFalse(response.isFailed(), "turn failed: " + response.getMessage());
+                }
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        List<Message> history = fixture.conversationStore.getHistory(SESSION_ID);
+        assertEquals(THREADS * TURNS_PER_THREAD * 2, history.size());
+        for (int i = 0; i < history.size(); i += 2) {
+            assertEquals(MessageType.USER, history.get(i).getMessageType(), "message " + i);
+            assertEquals(MessageType.ASSISTANT, history.get(i + 1).getMessageType(), "message " + (i + 1));
+            // The stub echoes the user message, so a reply placed after another turn's message shows here
+            assertEquals("Re: " + history.get(i).getContent(), history.get(i + 1).getContent(),
+                    "reply at message " + (i + 1));
+        }
+    }
+
+    private static ChatRequest request(String message) {
+        ChatRequest request = new ChatRequest();
+        request.setSessionId(SESSION_ID);
+        request.setUserType(ChatRequest.UserType.CUSTOMER);
+        request.setMessage(message);
+        return request;
+    }
+
+    /**
+     * Replies to chat prompts by echoing the user message, after a short pause that gives other
+     * threads time to arrive mid-turn; extraction prompts get a fixed extraction object.
+     */
+    private static final class StubChatClient implements ChatClient {
+
+        private static final String EXTRACTION = """
+                {"serviceType": "PLUMBING", "urgency": "HIGH", "location": "Leeds",
+                 "isEmergency": false, "jobDescription": "Leaking tap"}""";
+
+        @Override
+        public org.springframework.ai.chat.ChatResponse call(Prompt prompt) {
+            List<Message> messages = prompt.getInstructions();
+            String last = messages.get(messages.size() - 1).getContent();
+            String content;
+            if (last.startsWith("Extract structured information")) {
+                content = EXTRACTION;
+            } else {
+                sleepQuietly();
+                content = "Re: " + last;
+            }
+            return new org.springframework.ai.chat.ChatResponse(List.of(new Generation(content)));
+        }
+
+        private static void sleepQuietly() {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
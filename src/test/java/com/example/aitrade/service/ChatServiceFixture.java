@@ -0,0 +1,85 @@
+package com.example.aitrade.service;
+
+import com.example.aitrade.session.ConversationStore;
+import com.example.aitrade.session.InMemoryConversationStore;
+import com.example.aitrade.session.SessionLocks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.ai.chat.ChatClient;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wires a ChatService by hand, the way Spring would, around a stub {@link ChatClient}.
+ * Shared by the tests and, through the test jar, by the benchmarks module.
+ */
+public final class ChatServiceFixture {
+
+    static final String SYSTEM_MESSAGE = """
+            You are a smart AI assistant for a trade platform connecting customers with skilled tradespeople.
+            Be conversational and adaptive. Don't repeat questions you've already asked.
+            """;
+
+    public final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    public final ConversationStore conversationStore;
+    public final ChatService chatService;
+    private final ExtractionExecutor extractionExecutor;
+
+    public ChatServiceFixture(ChatClient chatClient, boolean asyncExtraction) {
+        this(chatClient, asyncExtraction, true);
+    }
+
+    public ChatServiceFixture(ChatClient chatClient, boolean asyncExtraction, boolean coalesce) {
+        // Payload capture off: LoggingBenchmark measures logging on its own
+        this(chatClient, asyncExtraction, coalesce, new PayloadLogger(0, 4096));
+    }
+
+    public ChatServiceFixture(ChatClient chatClient, boolean asyncExtraction, boolean coalesce,
+                              PayloadLogger payloadLogger) {
+        this.conversationStore = new InMemoryConversationStore(100_000, 1L << 30, Duration.ofHours(1), meterRegistry);
+
+        ContextWindowManager contextWindowManager =
+                new ContextWindowManager(conversationStore, meterRegistry, 3000, 6000, 12000, 400, 240);
+        this.extractionExecutor = new ExtractionExecutor(64, 10_000, 100_000, meterRegistry);
+        EngineBulkhead engineBulkhead = new EngineBulkhead(1024, 1024, 1024, Duration.ofSeconds(30),
+                8, 4, 2, 1, meterRegistry);
+        ChatMetrics chatMetrics = new ChatMetrics(meterRegistry, "mistral", "llama", "grok");
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(false, 0.95, Duration.ofMillis(300), 0.05, 10, meterRegistry);
+        EngineRouter engineRouter = new EngineRouter(List.of(new SpringAiChatEngine("ollama", chatClient, chatMetrics)),
+                engineBulkhead, chatMetrics, hedgingPolicy, meterRegistry, "ollama", 100, Duration.ofMinutes(5), Duration.ofSeconds(2),
+                4, 1, 1, 1, 5, 0.5, 10, Duration.ofSeconds(30));
+        // Cache off so every turn exercises the full extraction path
+        ExtractionCache extractionCache = new ExtractionCache(false, 1, Duration.ofMinutes(1), 0,
+                "mistral", "llama", "grok", meterRegistry);
+
+        ExtractionParser extractionParser = new ExtractionParser();
+        CombinedReplyParser combinedReplyParser = new CombinedReplyParser(extractionParser);
+        this.chatService = new ChatService(engineRouter, conversationStore, contextWindowManager, new SessionLocks(),
+                combinedReplyParser, new SystemPrompts(SYSTEM_MESSAGE, combinedReplyParser), extractionExecutor, extractionCache, extractionParser,
+                // Persistence off: PersistenceBenchmark measures the database side on its own
+                new ExtractionWriter(false, 50, Duration.ofSeconds(2), 1, null, null, null, meterRegistry),
+                new TradespersonMatcher(null, 5, 80, meterRegistry),
+                new RequestCoalescer(coalesce, Set.of("extraction", "chat"), meterRegistry),
+                payloadLogger, chatMetrics, meterRegistry);
+        setField(chatService, "extractionMode", "separate");
+        setField(chatService, "asyncExtraction", asyncExtraction);
+    }
+
+    public void close() {
+        extractionExecutor.shutdown();
+        meterRegistry.close();
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.aitrade.session;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two stores sharing one embedded H2 database, standing in for two replicas.
+ */
+class JdbcConversationStoreTest {
+
+    private static final String SESSION_ID = "session-1";
+
+    private final MeterRegistry registryA = new SimpleMeterRegistry();
+    private final MeterRegistry registryB = new SimpleMeterRegistry();
+    private JdbcConversationStore nodeA;
+    private JdbcConversationStore nodeB;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:conversations" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        ClassPathResource schema = new ClassPathResource("db/conversation-store.sql");
+        jdbc = new JdbcTemplate(dataSource);
+        nodeA = new JdbcConversationStore(jdbc, 1L << 20, Duration.ofHours(1),
+                true, schema, registryA);
+        nodeB = new JdbcConversationStore(new JdbcTemplate(dataSource), 1L << 20, Duration.ofHours(1),
+                false, schema, registryB);
+    }
+
+    @Test
+    void appendsFromBothReplicasKeepTheirOrder() {
+        nodeA.append(SESSION_ID, List.of(new UserMessage("turn 1")));
+        nodeB.append(SESSION_ID, List.of(new AssistantMessage("reply 1")));
+        nodeA.append(SESSION_ID, List.of(new UserMessage("turn 2")));
+        nodeB.append(SESSION_ID, List.of(new AssistantMessage("reply 2"), new UserMessage("turn 3")));
+
+        List<String> expected = List.of("turn 1", "reply 1", "turn 2", "reply 2", "turn 3");
+        assertEquals(expected, contents(nodeA.getHistory(SESSION_ID)));
+        assertEquals(expected, contents(nodeB.getHistory(SESSION_ID)));
+    }
+
+    @Test
+    void appendOnAStaleReplicaRetriesAfterTheOtherReplicasRow() {
+        nodeA.append(SESSION_ID, List.of(new UserMessage("turn 1")));
+        nodeB.getHistory(SESSION_ID);
+        nodeA.append(SESSION_ID, List.of(new AssistantMessage("reply 1")));
+
+        // nodeB still believes the session ends at turn 1, so its first insert collides
+        nodeB.append(SESSION_ID, List.of(new UserMessage("turn 2")));
+
+        assertEquals(1.0, registryB.counter("chat.sessions.append.conflicts").count());
+        assertEquals(List.of("turn 1", "reply 1", "turn 2"), contents(nodeA.getHistory(SESSION_ID)));
+        assertEquals(List.of("turn 1", "reply 1", "turn 2"), contents(nodeB.getHistory(SESSION_ID)));
+    }
+
+    @Test
+    void nearCachePicksUpAppendsFromTheOtherReplica() {
+        nodeA.append(SESSION_ID, List.of(new UserMessage("turn 1")));
+        assertEquals(List.of("turn 1"), contents(nodeB.getHistory(SESSION_ID)));
+
+        nodeA.append(SESSION_ID, List.of(new AssistantMessage("reply 1")));
+
+        assertEquals(List.of("turn 1", "reply 1"), contents(nodeB.getHistory(SESSION_ID)));
+        assertEquals(1.0, nearCacheCount(registryB, "delta"));
+
+        // Nothing new since: served from the near-cache after one revalidation query
+        assertEquals(List.of("turn 1", "reply 1"), contents(nodeB.getHistory(SESSION_ID)));
+        assertEquals(1.0, nearCacheCount(registryB, "current"));
+    }
+
+    @Test
+    void nearCacheDropsASessionRemovedByTheOtherReplica() {
+        nodeA.append(SESSION_ID, List.of(new UserMessage("turn 1")));
+        assertEquals(1, nodeB.getHistory(SESSION_ID).size());
+
+        nodeA.remove(SESSION_ID);
+
+        assertTrue(nodeB.getHistory(SESSION_ID).isEmpty());
+        assertEquals(0, nodeB.size());
+    }
+
+    @Test
+    void nearCacheReloadsASessionRecreatedByTheOtherReplica() {
+        nodeA.append(SESSION_ID, List.of(new UserMessage("turn 1")));
+        nodeB.getHistory(SESSION_ID);
+
+        // Same sequence number as nodeB's cached last row, different content
+        nodeA.remove(SESSION_ID);
+        nodeA.append(SESSION_ID, List.of(new UserMessage("new conversation")));
+
+        assertEquals(List.of("new conversation"), contents(nodeB.getHistory(SESSION_ID)));
+        assertEquals(1.0, nearCacheCount(registryB, "reload"));
+    }
+
+    @Test
+    void sweepDeletesOnlySessionsIdleForLongerThanTheTtl() {
+        nodeA.append("idle", List.of(new UserMessage("old turn"), new AssistantMessage("old reply")));
+        nodeA.append(SESSION_ID, List.of(new UserMessage("recent turn")));
+        jdbc.update("UPDATE conversation_message SET created_at = ? WHERE session_id = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofHours(2))), "idle");
+
+        nodeB.evictExpired();
+
+        assertEquals(Integer.valueOf(0), jdbc.queryForObject(
+                "SELECT COUNT(*) FROM conversation_message WHERE session_id = ?", Integer.class, "idle"));
+        assertEquals(List.of("recent turn"), contents(nodeB.getHistory(SESSION_ID)));
+    }
+
+    private static double nearCacheCount(MeterRegistry registry, String result) {
+        return registry.counter("chat.sessions.near.cache", "result", result).count();
+    }
+
+    private static List<String> contents(List<Message> messages) {
+        return messages.stream().map(Message::getContent).toList();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.aitrade.session;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.FunctionMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageCodecTest {
+
+    @Test
+    void roundTripsEveryRole() {
+        List<Message> messages = List.of(
+                new SystemMessage("You are a trade platform assistant."),
+                new UserMessage("I need a plumber in Leeds"),
+                new AssistantMessage("How soon do you need them?"),
+                new FunctionMessage("{\"matches\": 3}"));
+
+        assertRoundTrips(messages);
+    }
+
+    @Test
+    void roundTripsUnicode() {
+        assertRoundTrips(List.of(
+                new UserMessage("Budget £200–£300, café on Rue de l'Église"),
+                new AssistantMessage("Noted 👍 — 水道の修理, ремонт, إصلاح")));
+    }
+
+    @Test
+    void roundTripsEmptyContent() {
+        assertRoundTrips(List.of(new UserMessage(""), new AssistantMessage("")));
+        assertRoundTrips(List.of());
+    }
+
+    @Test
+    void roundTripsContentLongerThanOneVarintByte() {
+        // 200 and 70,000 UTF-8 bytes need two- and three-byte lengths
+        assertRoundTrips(List.of(new UserMessage("a".repeat(200)), new AssistantMessage("é".repeat(35_000))));
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        byte[] payload = MessageCodec.encode(List.of(new UserMessage("hi")));
+        payload[0] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> MessageCodec.decode(payload));
+    }
+
+    private static void assertRoundTrips(List<Message> messages) {
+        List<Message> decoded = MessageCodec.decode(MessageCodec.encode(messages));
+
+        assertEquals(messages.size(), decoded.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(messages.get(i).getMessageType(), decoded.get(i).getMessageType(), "type of message " + i);
+            assertEquals(messages.get(i).getContent(), decoded.get(i).getContent(), "content of message " + i);
+        }
+    }
+}